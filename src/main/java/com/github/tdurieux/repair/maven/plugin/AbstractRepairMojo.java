@@ -7,26 +7,36 @@ import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
-import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.plugins.surefire.report.ReportTestSuite;
-import org.apache.maven.plugins.surefire.report.SurefireReportParser;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.reporting.MavenReportException;
 
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public abstract class AbstractRepairMojo extends AbstractMojo {
 
@@ -51,49 +61,339 @@ public abstract class AbstractRepairMojo extends AbstractMojo {
     @Parameter( defaultValue = "${reactorProjects}", readonly = true )
 	protected List<MavenProject> reactorProjects;
 
+    @Parameter( defaultValue = "${session}", readonly = true )
+    protected MavenSession session;
+
+    @Parameter( defaultValue = "${mojoExecution}", readonly = true )
+    protected MojoExecution mojoExecution;
+
+    @Parameter( defaultValue = "${plugin}", readonly = true )
+    protected PluginDescriptor plugin;
+
+    /**
+     * Executes the goal in a child Maven process whose heap, metaspace and garbage collector
+     * are chosen according to the size of the sources and of the classpath.
+     */
+    @Parameter(defaultValue = "false", property = "fork")
+    protected boolean fork;
+
+    /**
+     * Maximum heap of the forked process in MB.
+     */
+    @Parameter(defaultValue = "8192", property = "forkMaxHeap")
+    protected int forkMaxHeap;
+
+    /**
+     * Number of executions with more memory after an OutOfMemoryError of the forked process.
+     */
+    @Parameter(defaultValue = "2", property = "forkRetries")
+    protected int forkRetries;
+
+    /**
+     * Git revision used as base of the incremental mode: only the java files
+     * changed since this revision are considered for the repair.
+     */
+    @Parameter(property = "gitBase")
+    protected String gitBase;
+
+    /**
+     * Only considers the modules containing failing tests and the modules they depend on.
+     */
+    @Parameter(defaultValue = "false", property = "reachableModulesOnly")
+    protected boolean reachableModulesOnly;
+
+    /**
+     * Repairs the groups of tests failing at the same location as independent jobs.
+     */
+    @Parameter(defaultValue = "false", property = "batch")
+    protected boolean batch;
+
+    /**
+     * Number of batch jobs executed concurrently. Nopol and Astor run in the Maven process
+     * and keep a global state, they reject more than one thread. The partitions of NPEFix
+     * run in their own processes and are bounded by partitionThreads instead.
+     */
+    @Parameter(defaultValue = "1", property = "batchThreads")
+    protected int batchThreads;
+
+    /**
+     * Also writes the results in the compact binary format, see the convert-results goal.
+     */
+    @Parameter(defaultValue = "false", property = "binaryResults")
+    protected boolean binaryResults;
+
+    /**
+     * Records the results of the executions in a result store, see the query goal.
+     * Enabled by default for the jobs of the coordinator.
+     */
+    @Parameter(defaultValue = "false", property = "storeResults")
+    protected boolean storeResults;
+
+    /**
+     * Result store, shared by all the projects in the local repository by default.
+     */
+    @Parameter(property = "resultStore")
+    protected File resultStore;
+
+    /**
+     * Number of test JVMs of the validation pool.
+     */
+    @Parameter(defaultValue = "2", property = "validationJvms")
+    protected int validationJvms;
+
+    /**
+     * Checks the candidates again before saving the result: the diff of each valid
+     * candidate is applied to the sources and compiled, and the failing tests are
+     * executed with the patched classes on the validation pool. The candidates that
+     * do not compile or do not make the failing tests pass are saved as invalid.
+     */
+    @Parameter(defaultValue = "false", property = "validateCandidates")
+    protected boolean validateCandidates;
+
+    /**
+     * Executes each failing test this number of times on the validation pool before the repair,
+     * the tests that pass in at least one execution are flaky or not reproducible and are not
+     * repaired. 0 disables the detection.
+     */
+    @Parameter(defaultValue = "0", property = "flakyRuns")
+    protected int flakyRuns;
+
+    private FailureIndex failureIndex;
+
+    private SourceIndex sourceIndex;
+
+    private GitChangeScope changeScope;
+
+    private List<MavenProject> modulesInScope;
+
+    private Map<MavenProject, ModuleMetadata> modulesMetadata;
+
+    /**
+     * @return the highest Java version of the modules in scope, the sources of
+     * all the modules are analyzed together
+     */
     public int getComplianceLevel() {
-        int complianceLevel = 7;
-        if (!source.equals("-1")) {
-            complianceLevel = Integer.parseInt(source.substring(2));
-        } else if (!oldSource.equals("-1")) {
-            complianceLevel = Integer.parseInt(oldSource.substring(2));
-        } else if (!javaVersion.equals("-1")) {
-            complianceLevel = Integer.parseInt(javaVersion.substring(2, 3));
+        int complianceLevel = -1;
+        for (MavenProject mavenProject : getModulesInScope()) {
+            complianceLevel = Math.max(complianceLevel, getModuleMetadata(mavenProject).getComplianceLevel());
+        }
+        for (String version : new String[] {source, oldSource, javaVersion}) {
+            if (complianceLevel == -1 && !version.equals("-1")) {
+                complianceLevel = ModuleMetadata.parseComplianceLevel(version);
+            }
+        }
+        if (complianceLevel == -1) {
+            getLog().warn("No Java version found, the sources are analyzed as Java 7.");
+            complianceLevel = 7;
         }
         return complianceLevel;
     }
 
-        private File getSurefireReportsDirectory( MavenProject subProject ) {
-        String buildDir = subProject.getBuild().getDirectory();
-        return new File( buildDir + "/surefire-reports" );
+    public synchronized ModuleMetadata getModuleMetadata(MavenProject mavenProject) {
+        if (modulesMetadata == null) {
+            modulesMetadata = new HashMap<>();
+            for (MavenProject reactorProject : reactorProjects) {
+                modulesMetadata.put(reactorProject, ModuleMetadata.of(reactorProject));
+            }
+        }
+        ModuleMetadata metadata = modulesMetadata.get(mavenProject);
+        if (metadata == null) {
+            metadata = ModuleMetadata.of(mavenProject);
+            modulesMetadata.put(mavenProject, metadata);
+        }
+        return metadata;
+    }
+
+    public synchronized FailureIndex getFailureIndex() {
+        if (failureIndex == null) {
+            failureIndex = FailureIndex.load(reactorProjects);
+            if (flakyRuns > 0) {
+                detectFlakyTests(failureIndex);
+            }
+        }
+        return failureIndex;
+    }
+
+    /**
+     * Classifies the failing tests that are not classified yet and excludes the flaky ones,
+     * the classification is recorded in the build directory of each module.
+     */
+    private void detectFlakyTests(FailureIndex index) {
+        Map<MavenProject, List<FailingTest>> testsByModule = new LinkedHashMap<>();
+        for (FailingTest failingTest : index.getFailingTests()) {
+            List<FailingTest> tests = testsByModule.get(failingTest.getModule());
+            if (tests == null) {
+                tests = new ArrayList<>();
+                testsByModule.put(failingTest.getModule(), tests);
+            }
+            tests.add(failingTest);
+        }
+        Map<String, FlakyTestDetector.Classification> excludedTests = new HashMap<>();
+        ValidationPool pool = null;
+        try {
+            for (Map.Entry<MavenProject, List<FailingTest>> moduleTests : testsByModule.entrySet()) {
+                File classificationFile = FlakyTestDetector.getClassificationFile(moduleTests.getKey());
+                Map<String, FlakyTestDetector.Classification> classification = FlakyTestDetector.loadClassification(classificationFile,
+                        FailureIndex.getSurefireReportsDirectory(moduleTests.getKey()));
+                List<FailingTest> unclassifiedTests = new ArrayList<>();
+                for (FailingTest failingTest : moduleTests.getValue()) {
+                    if (!classification.containsKey(failingTest.getId())) {
+                        unclassifiedTests.add(failingTest);
+                    }
+                }
+                if (!unclassifiedTests.isEmpty()) {
+                    if (pool == null) {
+                        pool = createValidationPool();
+                    }
+                    getLog().info("Execute " + unclassifiedTests.size() + " failing tests " + flakyRuns + " times to detect the flaky tests");
+                    Map<String, FlakyTestDetector.Classification> newClassification = new FlakyTestDetector(pool, flakyRuns, validationJvms).classify(unclassifiedTests);
+                    if (newClassification.size() < unclassifiedTests.size()) {
+                        getLog().warn((unclassifiedTests.size() - newClassification.size()) + " failing tests could not be executed, they are repaired");
+                    }
+                    FlakyTestDetector.saveClassification(classificationFile, newClassification);
+                    classification.putAll(newClassification);
+                }
+                for (Map.Entry<String, FlakyTestDetector.Classification> entry : classification.entrySet()) {
+                    if (entry.getValue().isExcluded()) {
+                        excludedTests.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            getLog().warn("Unable to detect the flaky tests, all the failing tests are repaired", e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            if (pool != null) {
+                pool.close();
+            }
+        }
+        index.excludeFlakyTests(excludedTests.keySet());
+        for (FailingTest flakyTest : index.getFlakyTests()) {
+            if (excludedTests.get(flakyTest.getId()) == FlakyTestDetector.Classification.FLAKY) {
+                getLog().warn("Flaky test excluded from the repair: " + flakyTest.getId());
+            } else {
+                getLog().warn("Test passing in every execution excluded from the repair: " + flakyTest.getId());
+            }
+        }
     }
 
     public List<String> getFailingTests() {
-        List<String> result = new ArrayList<>();
+        return new ArrayList<>(getFailureIndex().getFailingTestClasses());
+    }
 
-        for (MavenProject mavenProject : reactorProjects) {
-            File surefireReportsDirectory = getSurefireReportsDirectory(mavenProject);
-            SurefireReportParser parser = new SurefireReportParser(Collections.singletonList(surefireReportsDirectory), Locale.ENGLISH, new NullConsoleLogger());
+    /**
+     * @return the modules whose surefire reports contain a failure or an error
+     */
+    public List<MavenProject> getFailingModules() {
+        return new ArrayList<>(getFailureIndex().getFailingModules());
+    }
 
-            try {
-                List<ReportTestSuite> testSuites = parser.parseXMLReportFiles();
-                for (ReportTestSuite reportTestSuite : testSuites) {
-                    if (reportTestSuite.getNumberOfErrors()+reportTestSuite.getNumberOfFailures() > 0) {
-                        result.add(reportTestSuite.getFullClassName());
-                    }
+    /**
+     * @return the failing tests grouped by failure location, used by the batch mode
+     */
+    public List<FailureCluster> getFailureClusters() {
+        List<FailureCluster> clusters = getFailureIndex().getClusters();
+        getLog().info(clusters.size() + " groups of failing tests");
+        for (FailureCluster cluster : clusters) {
+            getLog().info(cluster.toString());
+        }
+        return clusters;
+    }
+
+    /**
+     * Nopol and Astor execute whole test classes: the clusters sharing a test class
+     * would repair the same failures, they are merged in a single job.
+     *
+     * @return disjoint sets of failing test classes, one per batch job
+     */
+    public List<List<String>> getFailingTestClassGroups() {
+        List<List<String>> groups = FailureCluster.getTestClassGroups(getFailureClusters());
+        getLog().info(groups.size() + " independent repair jobs");
+        return groups;
+    }
+
+    /**
+     * Executes the repair jobs in the Maven process, one after another: the repair
+     * tools keep a static state and the jobs would corrupt each other.
+     *
+     * @return the results in the order of the jobs, null for the jobs that failed
+     */
+    protected <T> List<T> runJobs(List<Callable<T>> jobs) throws MojoExecutionException {
+        if (batchThreads > 1) {
+            throw new MojoExecutionException("batchThreads=" + batchThreads + " is not supported by " + mojoExecution.getGoal()
+                    + ", its repair tool keeps a global state in the Maven process");
+        }
+        return runJobs(jobs, 1);
+    }
+
+    /**
+     * Executes the repair jobs on a pool of nbThreads workers.
+     *
+     * @return the results in the order of the jobs, null for the jobs that failed
+     */
+    protected <T> List<T> runJobs(List<Callable<T>> jobs, int nbThreads) throws MojoExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(nbThreads, jobs.size())));
+        try {
+            List<Future<T>> futures = executor.invokeAll(jobs);
+            List<T> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    getLog().error("Repair job " + i + " failed", e.getCause());
+                    results.add(null);
                 }
-            } catch (MavenReportException e) {
-                e.printStackTrace();;
             }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while repairing", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    /**
+     * @return the reactor modules whose sources and binaries are given to the repair tools
+     */
+    public synchronized List<MavenProject> getModulesInScope() {
+        if (modulesInScope != null) {
+            return modulesInScope;
+        }
+        modulesInScope = reactorProjects;
+        if (reachableModulesOnly) {
+            List<MavenProject> failingModules = getFailingModules();
+            if (failingModules.isEmpty()) {
+                getLog().warn("No module with failing tests, all the modules are considered.");
+            } else {
+                modulesInScope = new ReactorGraph(reactorProjects).getReachable(failingModules);
+                getLog().info(modulesInScope.size() + "/" + reactorProjects.size() + " modules reachable from the failing tests");
+            }
         }
+        return modulesInScope;
+    }
 
-        return result;
+    /**
+     * @return the index of the main source files of the modules in scope, built on first use
+     */
+    public synchronized SourceIndex getSourceIndex() {
+        if (sourceIndex == null) {
+            List<File> sourceDirectories = new ArrayList<>();
+            for (MavenProject mavenProject : getModulesInScope()) {
+                sourceDirectories.add(getModuleMetadata(mavenProject).getSourceDirectory());
+            }
+            sourceIndex = new SourceIndex(sourceDirectories);
+            getLog().debug(sourceIndex.size() + " source files indexed");
+        }
+        return sourceIndex;
     }
 
     public List<URL> getClasspath() {
         List<URL> classpath = new ArrayList<>();
-        for (MavenProject mavenProject : reactorProjects) {
+        for (MavenProject mavenProject : getModulesInScope()) {
             try {
                 for (String s : mavenProject.getTestClasspathElements()) {
                     File f = new File(s);
@@ -112,8 +412,8 @@ public abstract class AbstractRepairMojo extends AbstractMojo {
 
 	public List<File> getTestFolders() {
 		Set<File> sourceFolder = new HashSet<>();
-		for (MavenProject mavenProject : reactorProjects) {
-			File sourceDirectory = new File(mavenProject.getBuild().getTestSourceDirectory());
+		for (MavenProject mavenProject : getModulesInScope()) {
+			File sourceDirectory = getModuleMetadata(mavenProject).getTestSourceDirectory();
 			if (sourceDirectory.exists()) {
 				sourceFolder.add(sourceDirectory);
 			}
@@ -123,13 +423,14 @@ public abstract class AbstractRepairMojo extends AbstractMojo {
 
     public List<File> getSourceFolders() {
         Set<File> sourceFolder = new HashSet<>();
-        for (MavenProject mavenProject : reactorProjects) {
-            File sourceDirectory = new File(mavenProject.getBuild().getSourceDirectory());
+        for (MavenProject mavenProject : getModulesInScope()) {
+            ModuleMetadata metadata = getModuleMetadata(mavenProject);
+            File sourceDirectory = metadata.getSourceDirectory();
             if (sourceDirectory.exists()) {
                 sourceFolder.add(sourceDirectory);
             }
 
-            File generatedSourceDirectory = new File(mavenProject.getBuild().getOutputDirectory() + "/generated-sources");
+            File generatedSourceDirectory = metadata.getGeneratedSourceDirectory();
             if (generatedSourceDirectory.exists()) {
                 sourceFolder.add(generatedSourceDirectory);
             }
@@ -137,6 +438,186 @@ public abstract class AbstractRepairMojo extends AbstractMojo {
         return new ArrayList<>(sourceFolder);
     }
 
+    public boolean isIncremental() {
+        return gitBase != null && !gitBase.isEmpty();
+    }
+
+    public synchronized GitChangeScope getChangeScope() {
+        if (changeScope == null && isIncremental()) {
+            try {
+                changeScope = GitChangeScope.compute(project.getBasedir(), gitBase);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to compute the changes since " + gitBase, e);
+            }
+            getLog().info(changeScope.getChangedFiles().size() + " java files changed since " + gitBase);
+        }
+        return changeScope;
+    }
+
+    /**
+     * @param roots source folders or source files
+     * @return the roots restricted to the changed files in incremental mode,
+     * the roots otherwise or when none of them has changed
+     */
+    public List<File> restrictToChanges(Collection<File> roots) {
+        if (!isIncremental()) {
+            return new ArrayList<>(roots);
+        }
+        List<File> changedFiles = getChangeScope().getChangedFiles(roots);
+        if (changedFiles.isEmpty()) {
+            getLog().warn("No change since " + gitBase + " in " + roots + ", the incremental mode is ignored.");
+            return new ArrayList<>(roots);
+        }
+        return changedFiles;
+    }
+
+    /**
+     * @return true if the goal has to be executed in a child process, never in a child process
+     * since the fork parameter of the pom applies to it too
+     */
+    protected boolean isForkRequested() {
+        return fork && !ForkedExecution.isForked();
+    }
+
+    /**
+     * @return the execution of the current goal in a child Maven process
+     */
+    protected ForkedExecution createForkedExecution() {
+        String goal = plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getVersion() + ":" + mojoExecution.getGoal();
+        return new ForkedExecution(project.getFile(), goal)
+                .setOffline(session.isOffline())
+                .setProperties(session.getUserProperties())
+                .setProperty("fork", "false");
+    }
+
+    protected void executeForked() throws MojoExecutionException {
+        JvmSizing sizing = JvmSizing.compute(getSourceFolders(), getClasspath(), forkMaxHeap);
+        ForkedExecution.Outcome outcome;
+        try {
+            outcome = createForkedExecution().run(sizing, forkRetries);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to fork " + mojoExecution.getGoal(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for the forked " + mojoExecution.getGoal(), e);
+        }
+        if (!outcome.isSuccess()) {
+            throw new MojoExecutionException("The forked " + mojoExecution.getGoal() + " failed with the exit code " + outcome.getExitCode()
+                    + (outcome.isOutOfMemory() ? " (out of memory with " + outcome.getSizing() + ")" : ""));
+        }
+    }
+
+    /**
+     * @return a started pool of test JVMs running the tests of the modules in scope,
+     * the output folders of the modules being reloaded for each candidate
+     */
+    protected ValidationPool createValidationPool() throws IOException {
+        List<File> projectFolders = new ArrayList<>();
+        for (MavenProject mavenProject : getModulesInScope()) {
+            projectFolders.add(getModuleMetadata(mavenProject).getOutputDirectory());
+            projectFolders.add(getModuleMetadata(mavenProject).getTestOutputDirectory());
+        }
+        List<URL> dependencies = new ArrayList<>();
+        for (URL url : getClasspath()) {
+            if (!projectFolders.contains(new File(url.getPath()))) {
+                dependencies.add(url);
+            }
+        }
+        JvmSizing sizing = JvmSizing.compute(Collections.<File>emptyList(), dependencies, forkMaxHeap);
+        return new ValidationPool(dependencies, projectFolders)
+                .setJvmOptions(sizing.getJvmOptions())
+                .start(validationJvms);
+    }
+
+    /**
+     * @return a compiler of candidate patches against the classpath of the modules in scope
+     */
+    protected InMemoryCompiler createInMemoryCompiler() {
+        return new InMemoryCompiler(getClasspath(), getComplianceLevel());
+    }
+
+    private RepairResult validateCandidates(RepairResult result) {
+        List<File> roots = new ArrayList<>();
+        roots.add(project.getBasedir());
+        roots.addAll(getSourceFolders());
+        try (InMemoryCompiler compiler = createInMemoryCompiler();
+             ValidationPool pool = createValidationPool()) {
+            RepairResult validatedResult = new CandidateValidator(compiler, pool, roots).validate(result);
+            getLog().info(validatedResult.getNbValidCandidates() + "/" + result.getNbValidCandidates() + " valid candidates after the validation");
+            return validatedResult;
+        } catch (IOException e) {
+            getLog().warn("Unable to validate the candidates", e);
+            return result;
+        }
+    }
+
+    /**
+     * Writes the binary result if requested and records the result in the result store.
+     */
+    protected void saveResult(RepairResult result, File directory) {
+        if (validateCandidates) {
+            result = validateCandidates(result);
+        }
+        writeBinaryResult(result, directory);
+        if (!storeResults) {
+            return;
+        }
+        File file = resultStore == null ? ResultStore.getDefaultFile(localRepository.getBasedir()) : resultStore;
+        String commit = null;
+        try {
+            commit = GitChangeScope.getHead(project.getBasedir());
+        } catch (IOException e) {
+            getLog().debug("No git commit for " + project.getBasedir());
+        }
+        try {
+            ResultStore.open(file).append(result, project.getGroupId() + ":" + project.getArtifactId(), commit, getConfiguration());
+            getLog().info("Result recorded in " + file);
+        } catch (IOException e) {
+            getLog().error("Unable to record the result in " + file, e);
+        }
+    }
+
+    /**
+     * @return the user properties bound to a parameter of the goal, the other properties
+     * (credentials of other plugins...) are not recorded in the shared result store
+     */
+    private String getConfiguration() {
+        Set<String> parameterProperties = new HashSet<>();
+        for (org.apache.maven.plugin.descriptor.Parameter parameter : mojoExecution.getMojoDescriptor().getParameters()) {
+            String expression = parameter.getExpression();
+            if (expression != null && expression.startsWith("${") && expression.endsWith("}")) {
+                parameterProperties.add(expression.substring(2, expression.length() - 1));
+            }
+        }
+        StringBuilder configuration = new StringBuilder();
+        for (String key : new TreeSet<>(session.getUserProperties().stringPropertyNames())) {
+            if (!parameterProperties.contains(key)) {
+                continue;
+            }
+            if (configuration.length() > 0) {
+                configuration.append(';');
+            }
+            configuration.append(key).append('=').append(session.getUserProperties().getProperty(key));
+        }
+        return configuration.toString();
+    }
+
+    protected void writeBinaryResult(RepairResult result, File directory) {
+        if (!binaryResults) {
+            return;
+        }
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, result.getTool() + "_" + result.getEnd() + RepairResultFormat.EXTENSION);
+        try {
+            RepairResultFormat.write(result, file);
+            getLog().info("Binary result written in " + file);
+        } catch (IOException e) {
+            getLog().error("Unable to write the binary result " + file, e);
+        }
+    }
+
     protected void setGzoltarDebug(boolean debugValue) {
         try {
             Field debug = com.gzoltar.core.agent.Launcher.class.getDeclaredField("debug");
@@ -1,87 +1,272 @@
 package com.github.tdurieux.repair.maven.plugin;
 
-import java.lang.reflect.Field;
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * Typed description of an Astor execution.
+ *
+ * The argument vector is computed once (see {@link #getAstorArgs()}) and
+ * invalidated by any modification of the context.
+ */
 public class AstorContext {
 
-	public  String mode;
+	private static final String LIST_SEPARATOR = ":";
 
-	public String location;
+	private String mode;
 
-	public List<String> dependencies = new ArrayList<>();
+	private File location;
 
-	public List<String> srcJavaFolder = new ArrayList<>();
+	private final List<String> dependencies = new ArrayList<>();
 
-	public List<String> srcTestFolder = new ArrayList<>();
+	private final List<String> srcJavaFolder = new ArrayList<>();
 
-	public List<String> binJavaFolder = new ArrayList<>();
+	private final List<String> srcTestFolder = new ArrayList<>();
 
-	public List<String> binTestFolder = new ArrayList<>();
+	private final List<String> binJavaFolder = new ArrayList<>();
 
-	public List<String> failing = new ArrayList<>();
+	private final List<String> binTestFolder = new ArrayList<>();
 
-	public String out;
+	private final List<String> failing = new ArrayList<>();
 
-	public String Package;
+	private String out;
 
-	public  String scope;
+	private String packageToInstrument;
 
-	public  double flThreshold;
+	private String scope;
 
-	public  int seed;
+	private double flThreshold;
 
-	public  int maxGen;
+	private int seed;
 
-	public  int maxTime;
+	private int maxGen;
 
-	public  boolean stopFirst = false;
+	private int maxTime;
 
-	public int javaComplianceLevel;
+	private boolean stopFirst = false;
 
-	public boolean skipfaultlocalization = false;
+	private int javaComplianceLevel;
 
+	private boolean skipFaultLocalization = false;
 
+	private String[] astorArgs;
 
+	public AstorContext setMode(String mode) {
+		this.mode = mode;
+		return modified();
+	}
+
+	public AstorContext setLocation(File location) {
+		this.location = location;
+		return modified();
+	}
+
+	public AstorContext addDependency(String path) {
+		if (path != null && !dependencies.contains(path)) {
+			dependencies.add(path);
+		}
+		return modified();
+	}
+
+	/**
+	 * @param relativePath folder relative to the location, ignored when null
+	 */
+	public AstorContext addSrcJavaFolder(String relativePath) {
+		return addFolder(srcJavaFolder, relativePath);
+	}
+
+	public AstorContext addSrcTestFolder(String relativePath) {
+		return addFolder(srcTestFolder, relativePath);
+	}
+
+	public AstorContext addBinJavaFolder(String relativePath) {
+		return addFolder(binJavaFolder, relativePath);
+	}
+
+	public AstorContext addBinTestFolder(String relativePath) {
+		return addFolder(binTestFolder, relativePath);
+	}
+
+	public AstorContext addFailing(String testClass) {
+		if (testClass != null && !failing.contains(testClass)) {
+			failing.add(testClass);
+		}
+		return modified();
+	}
+
+	public AstorContext setOut(String out) {
+		this.out = out;
+		return modified();
+	}
+
+	public AstorContext setPackage(String packageToInstrument) {
+		this.packageToInstrument = packageToInstrument;
+		return modified();
+	}
+
+	public AstorContext setScope(String scope) {
+		this.scope = scope;
+		return modified();
+	}
+
+	public AstorContext setFlThreshold(double flThreshold) {
+		this.flThreshold = flThreshold;
+		return modified();
+	}
+
+	public AstorContext setSeed(int seed) {
+		this.seed = seed;
+		return modified();
+	}
+
+	public AstorContext setMaxGen(int maxGen) {
+		this.maxGen = maxGen;
+		return modified();
+	}
+
+	public AstorContext setMaxTime(int maxTime) {
+		this.maxTime = maxTime;
+		return modified();
+	}
+
+	public AstorContext setStopFirst(boolean stopFirst) {
+		this.stopFirst = stopFirst;
+		return modified();
+	}
+
+	public AstorContext setJavaComplianceLevel(int javaComplianceLevel) {
+		this.javaComplianceLevel = javaComplianceLevel;
+		return modified();
+	}
+
+	public AstorContext setSkipFaultLocalization(boolean skipFaultLocalization) {
+		this.skipFaultLocalization = skipFaultLocalization;
+		return modified();
+	}
+
+	public List<String> getDependencies() {
+		return Collections.unmodifiableList(dependencies);
+	}
+
+	public List<String> getBinJavaFolder() {
+		return Collections.unmodifiableList(binJavaFolder);
+	}
+
+	public List<String> getBinTestFolder() {
+		return Collections.unmodifiableList(binTestFolder);
+	}
+
+	public List<String> getFailing() {
+		return Collections.unmodifiableList(failing);
+	}
+
+	/**
+	 * Validates the context and returns the command line arguments of Astor.
+	 * The arguments are always produced in the same order.
+	 *
+	 * @throws IllegalStateException if the context is incomplete or refers to missing paths
+	 */
 	public String[] getAstorArgs() {
-		List<String> output = new ArrayList<>();
-		Field[] declaredFields = this.getClass().getDeclaredFields();
-		for (int i = 0; i < declaredFields.length; i++) {
-			Field declaredField = declaredFields[i];
-			try {
-				Object value = declaredField.get(this);
-				if (value == null) {
-					continue;
-				}
-				StringBuilder strValue = new StringBuilder(value.toString());
-				if (value instanceof Boolean) {
-					if (Boolean.TRUE.equals(value)) {
-						output.add("-" + declaredField.getName().toLowerCase());
-						output.add("true");
-					}
-					continue;
-				} else if (value instanceof Collection) {
-					if (((Collection) value).isEmpty()) {
-						continue;
-					}
-					strValue = new StringBuilder();
-					for (Iterator iterator = ((Collection) value).iterator(); iterator.hasNext(); ) {
-						Object v =  iterator.next();
-						strValue.append(v);
-						if (iterator.hasNext()) {
-							strValue.append(":");
-						}
-					}
-				}
-				output.add("-" + declaredField.getName().toLowerCase());
-				output.add(strValue.toString());
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
+		if (astorArgs == null) {
+			validate();
+			astorArgs = createArgs();
+		}
+		return astorArgs.clone();
+	}
+
+	private void validate() {
+		if (mode == null) {
+			throw new IllegalStateException("The Astor mode is not defined.");
+		}
+		if (location == null || !location.isDirectory()) {
+			throw new IllegalStateException("The location " + location + " is not a directory.");
+		}
+		if (out == null) {
+			throw new IllegalStateException("The Astor output directory is not defined.");
+		}
+		if (failing.isEmpty()) {
+			throw new IllegalStateException("No failing test to repair.");
+		}
+		for (String dependency : dependencies) {
+			if (!new File(dependency).exists()) {
+				throw new IllegalStateException("The dependency " + dependency + " does not exist.");
+			}
+		}
+		List<String> folders = new ArrayList<>();
+		folders.addAll(srcJavaFolder);
+		folders.addAll(srcTestFolder);
+		folders.addAll(binJavaFolder);
+		folders.addAll(binTestFolder);
+		for (String folder : folders) {
+			if (!new File(location, folder).exists()) {
+				throw new IllegalStateException("The folder " + folder + " does not exist in " + location + ".");
 			}
 		}
+	}
+
+	private String[] createArgs() {
+		List<String> output = new ArrayList<>();
+		addArg(output, "mode", mode);
+		addArg(output, "location", location.getAbsolutePath());
+		addArg(output, "dependencies", dependencies);
+		addArg(output, "srcjavafolder", srcJavaFolder);
+		addArg(output, "srctestfolder", srcTestFolder);
+		addArg(output, "binjavafolder", binJavaFolder);
+		addArg(output, "bintestfolder", binTestFolder);
+		addArg(output, "failing", failing);
+		addArg(output, "out", out);
+		addArg(output, "package", packageToInstrument);
+		addArg(output, "scope", scope);
+		addArg(output, "flthreshold", Double.toString(flThreshold));
+		addArg(output, "seed", Integer.toString(seed));
+		addArg(output, "maxgen", Integer.toString(maxGen));
+		addArg(output, "maxtime", Integer.toString(maxTime));
+		addArg(output, "stopfirst", stopFirst);
+		addArg(output, "javacompliancelevel", Integer.toString(javaComplianceLevel));
+		addArg(output, "skipfaultlocalization", skipFaultLocalization);
 		return output.toArray(new String[output.size()]);
 	}
+
+	private static void addArg(List<String> output, String name, String value) {
+		if (value == null) {
+			return;
+		}
+		output.add("-" + name);
+		output.add(value);
+	}
+
+	private static void addArg(List<String> output, String name, boolean value) {
+		if (value) {
+			addArg(output, name, "true");
+		}
+	}
+
+	private static void addArg(List<String> output, String name, List<String> values) {
+		if (values.isEmpty()) {
+			return;
+		}
+		StringBuilder strValue = new StringBuilder();
+		for (Iterator<String> iterator = values.iterator(); iterator.hasNext(); ) {
+			strValue.append(iterator.next());
+			if (iterator.hasNext()) {
+				strValue.append(LIST_SEPARATOR);
+			}
+		}
+		addArg(output, name, strValue.toString());
+	}
+
+	private AstorContext addFolder(List<String> folders, String relativePath) {
+		if (relativePath != null && !folders.contains(relativePath)) {
+			folders.add(relativePath);
+		}
+		return modified();
+	}
+
+	private AstorContext modified() {
+		astorArgs = null;
+		return this;
+	}
 }
@@ -0,0 +1,52 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+
+/**
+ * Class loader of a candidate patch: the classes of the project are loaded
+ * again for each candidate, the compiled classes of the candidate replacing
+ * the original ones, while the dependencies are shared through the parent.
+ */
+public class CandidateClassLoader extends URLClassLoader {
+
+    private final Map<String, byte[]> classes;
+
+    /**
+     * @param projectFolders output folders of the project (classes and test classes)
+     * @param classes bytecode of the patched classes by binary name
+     * @param parent class loader of the dependencies
+     */
+    public CandidateClassLoader(URL[] projectFolders, Map<String, byte[]> classes, ClassLoader parent) {
+        super(projectFolders, parent);
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!classes.containsKey(name)) {
+            return super.loadClass(name, resolve);
+        }
+        // the patched classes are never delegated, even if a dependency contains a class with the same name
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                loadedClass = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name);
+        if (bytes != null) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+        return super.findClass(name);
+    }
+}
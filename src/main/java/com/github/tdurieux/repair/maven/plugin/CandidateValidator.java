@@ -0,0 +1,113 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the candidates of a repair result again: the diff of each candidate is
+ * applied to the sources, the patched files are compiled in memory and the
+ * failing tests are executed with the patched classes on a {@link ValidationPool}.
+ */
+public class CandidateValidator {
+
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private final InMemoryCompiler compiler;
+
+    private final ValidationPool pool;
+
+    private final List<File> roots;
+
+    /**
+     * @param pool test JVMs executing the failing tests, null to only compile the candidates
+     * @param roots folders against which the paths of the diffs are resolved
+     */
+    public CandidateValidator(InMemoryCompiler compiler, ValidationPool pool, List<File> roots) {
+        this.compiler = compiler;
+        this.pool = pool;
+        this.roots = roots;
+    }
+
+    /**
+     * @return the result whose candidates are valid if they compile and make the failing tests pass,
+     * the candidates whose diff cannot be applied or whose tests cannot be executed being kept as they are
+     */
+    public RepairResult validate(RepairResult result) {
+        RepairResult output = new RepairResult(result.getTool(), result.getStart(), result.getEnd());
+        for (String test : result.getFailingTests()) {
+            output.addFailingTest(test);
+        }
+        for (RepairResult.Candidate candidate : result.getCandidates()) {
+            output.addCandidate(validate(candidate, result.getFailingTests()));
+        }
+        return output;
+    }
+
+    RepairResult.Candidate validate(RepairResult.Candidate candidate, List<String> failingTests) {
+        if (!candidate.isValid()) {
+            return candidate;
+        }
+        Map<File, String> patchedFiles;
+        try {
+            patchedFiles = UnifiedDiff.apply(candidate.getDiff(), roots);
+        } catch (IOException e) {
+            System.out.println("Candidate " + candidate.getId() + " not validated: " + e.getMessage());
+            return candidate;
+        }
+        if (patchedFiles == null) {
+            return candidate;
+        }
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Map.Entry<File, String> patchedFile : patchedFiles.entrySet()) {
+            sources.put(getClassName(patchedFile.getKey(), patchedFile.getValue()), patchedFile.getValue());
+        }
+        InMemoryCompiler.Compilation compilation = compiler.compile(sources);
+        if (!compilation.isSuccess()) {
+            System.out.println("Candidate " + candidate.getId() + " does not compile: " + compilation.getErrors());
+            return copy(candidate, false);
+        }
+        if (pool == null || failingTests.isEmpty()) {
+            return candidate;
+        }
+        TestRunner.Result testResult;
+        try {
+            testResult = pool.validate(compilation.getClasses(), failingTests);
+        } catch (IOException e) {
+            System.out.println("Candidate " + candidate.getId() + " not validated: " + e.getMessage());
+            return candidate;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return candidate;
+        }
+        if (testResult.getError() != null) {
+            System.out.println("Candidate " + candidate.getId() + " not validated: " + testResult.getError());
+            return candidate;
+        }
+        if (!testResult.isSuccess()) {
+            System.out.println("Candidate " + candidate.getId() + " does not pass the failing tests: " + testResult.getFailures());
+        }
+        RepairResult.Candidate validatedCandidate = copy(candidate, testResult.isSuccess());
+        for (String test : failingTests) {
+            validatedCandidate.addTest(test);
+        }
+        return validatedCandidate;
+    }
+
+    static RepairResult.Candidate copy(RepairResult.Candidate candidate, boolean valid) {
+        return new RepairResult.Candidate(candidate.getId(), valid, candidate.getDiff(), candidate.getDuration());
+    }
+
+    /**
+     * @return the qualified name of the main class of the compilation unit
+     */
+    static String getClassName(File file, String content) {
+        String name = file.getName().substring(0, file.getName().length() - ".java".length());
+        Matcher matcher = PACKAGE.matcher(content);
+        return matcher.find() ? matcher.group(1) + "." + name : name;
+    }
+}
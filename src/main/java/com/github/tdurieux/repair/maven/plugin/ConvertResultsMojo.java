@@ -0,0 +1,73 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the binary repair results to JSON.
+ *
+ * The JSON is a schema common to all the tools, in the layout of the NPEFix
+ * patches files: the tool, the dates, the failing tests and an execution per
+ * candidate with its id, diff, success, and its duration and tests when they are
+ * known. It is not the JSON written by each tool: the binary format only keeps
+ * these fields, the other fields of the tools (search space, angelic values,
+ * fitness...) are lost.
+ */
+@Mojo( name = "convert-results", requiresProject = false)
+public class ConvertResultsMojo extends AbstractMojo {
+
+    /**
+     * Binary result file or folder searched recursively for binary results,
+     * the goal does not require a project.
+     */
+    @Parameter( property = "input", required = true )
+    private File input;
+
+    /**
+     * Folder of the JSON files, next to the binary results by default.
+     */
+    @Parameter( property = "outputDir" )
+    private File outputDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<File> files = new ArrayList<>();
+        collect(input, files);
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - RepairResultFormat.EXTENSION.length());
+            File directory = outputDirectory == null ? file.getParentFile() : outputDirectory;
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            File output = new File(directory, name + ".json");
+            try (FileWriter writer = new FileWriter(output)) {
+                RepairResultFormat.toJSON(RepairResultFormat.read(file)).write(writer);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to convert " + file, e);
+            }
+            getLog().info("Converted " + file + " to " + output);
+        }
+        getLog().info(files.size() + " results converted");
+    }
+
+    private static void collect(File file, List<File> output) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collect(child, output);
+                }
+            }
+        } else if (file.getName().endsWith(RepairResultFormat.EXTENSION)) {
+            output.add(file);
+        }
+    }
+}
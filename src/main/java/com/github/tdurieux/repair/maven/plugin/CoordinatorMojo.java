@@ -0,0 +1,120 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distributes the repair of a set of bugs with several goals and configurations
+ * to workers, see the worker goal. Local workers can be started in addition
+ * to the remote ones.
+ */
+@Mojo( name = "coordinator", requiresProject = false)
+public class CoordinatorMojo extends AbstractMojo {
+
+    /**
+     * Project to repair or folder containing one project per bug.
+     */
+    @Parameter( defaultValue = "${basedir}", property = "bugs", required = true )
+    private File bugs;
+
+    /**
+     * Repair goals executed on each bug.
+     */
+    @Parameter( defaultValue = "npefix", property = "engines", required = true )
+    private List<String> engines;
+
+    /**
+     * Configurations executed for each goal, key=value properties separated by ';'.
+     */
+    @Parameter( property = "configurations" )
+    private List<String> configurations;
+
+    @Parameter( defaultValue = "7777", property = "coordinatorPort" )
+    private int port;
+
+    /**
+     * Number of workers started by the coordinator.
+     */
+    @Parameter( defaultValue = "1", property = "localWorkers" )
+    private int localWorkers;
+
+    /**
+     * Shared folder of the results, one folder per job.
+     */
+    @Parameter( defaultValue = "${basedir}/repair-results", property = "resultDir", required = true )
+    private File resultDirectory;
+
+    @Parameter(defaultValue = "8192", property = "forkMaxHeap")
+    private int forkMaxHeap;
+
+    @Parameter( defaultValue = "${session}", readonly = true )
+    private MavenSession session;
+
+    @Parameter( defaultValue = "${plugin}", readonly = true )
+    private PluginDescriptor plugin;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<RepairJob> jobs = RepairJob.enumerate(bugs, engines, configurations);
+        if (jobs.isEmpty()) {
+            throw new MojoExecutionException("No project found in " + bugs);
+        }
+        getLog().info(jobs.size() + " repair jobs");
+        resultDirectory.mkdirs();
+
+        RepairCoordinator coordinator = new RepairCoordinator(jobs);
+        try {
+            coordinator.start(port);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to listen on the port " + port, e);
+        }
+        getLog().info("Coordinator listening on the port " + coordinator.getPort());
+
+        String goalPrefix = plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getVersion();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < localWorkers; i++) {
+            RepairWorker worker = new RepairWorker("localhost", coordinator.getPort(), goalPrefix, resultDirectory, forkMaxHeap)
+                    .setOffline(session.isOffline());
+            Thread thread = new Thread(worker, "repair-worker-" + i);
+            thread.start();
+            workers.add(thread);
+        }
+
+        Map<String, JSONObject> results;
+        try {
+            results = coordinator.awaitResults();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for the repair jobs", e);
+        }
+
+        int nbFailures = 0;
+        for (JSONObject result : results.values()) {
+            if (result.optInt("exitCode") != 0) {
+                nbFailures++;
+                getLog().warn("Job " + result.optString("id") + " failed, see " + result.optString("directory"));
+            }
+        }
+        File summary = new File(resultDirectory, "jobs.json");
+        try {
+            coordinator.writeSummary(summary);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write " + summary, e);
+        }
+        getLog().info(results.size() + " jobs executed, " + nbFailures + " failed, summary in " + summary);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import exceptionparser.StackTrace;
+import exceptionparser.StackTraceElement;
+import exceptionparser.StackTraceParser;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * A failing test case read from a surefire report.
+ */
+public class FailingTest {
+
+    private static final String[] FRAMEWORK_PACKAGES = {"java.", "javax.", "sun.", "jdk.", "org.junit.", "junit.", "org.apache.maven.surefire."};
+
+    private final MavenProject module;
+
+    private final String className;
+
+    private final String methodName;
+
+    private final String failureDetail;
+
+    private StackTrace rootCause;
+
+    private boolean parsed = false;
+
+    public FailingTest(MavenProject module, String className, String methodName, String failureDetail) {
+        this.module = module;
+        this.className = className;
+        this.methodName = methodName;
+        this.failureDetail = failureDetail;
+    }
+
+    public MavenProject getModule() {
+        return module;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return the test identifier with the format class#method
+     */
+    public String getId() {
+        return className + "#" + methodName;
+    }
+
+    public String getFailureDetail() {
+        return failureDetail;
+    }
+
+    /**
+     * @return the innermost cause of the failure, null if the failure detail cannot be parsed
+     */
+    public synchronized StackTrace getRootCause() {
+        if (!parsed) {
+            parsed = true;
+            if (failureDetail != null) {
+                try {
+                    StackTrace stackTrace = StackTraceParser.parse(failureDetail);
+                    StackTrace causedBy = stackTrace.getCausedBy();
+                    while (causedBy != null) {
+                        stackTrace = causedBy;
+                        causedBy = stackTrace.getCausedBy();
+                    }
+                    rootCause = stackTrace;
+                } catch (StackTraceParser.ParseException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return rootCause;
+    }
+
+    /**
+     * @return the exception type and the first frame outside of the JDK and test frameworks,
+     * used to group the tests that fail for the same reason
+     */
+    public String getFailureLocation() {
+        StackTrace stackTrace = getRootCause();
+        if (stackTrace == null) {
+            return getId();
+        }
+        for (StackTraceElement element : stackTrace.getElements()) {
+            if (!isFrameworkFrame(element.getMethod())) {
+                return stackTrace.getExceptionType() + "@" + element.getMethod();
+            }
+        }
+        return stackTrace.getExceptionType() + "@" + getId();
+    }
+
+    private static boolean isFrameworkFrame(String method) {
+        for (String frameworkPackage : FRAMEWORK_PACKAGES) {
+            if (method.startsWith(frameworkPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Failing tests sharing the same failure location.
+ */
+public class FailureCluster {
+
+    private final int id;
+
+    private final String location;
+
+    private final List<FailingTest> tests = new ArrayList<>();
+
+    public FailureCluster(int id, String location) {
+        this.id = id;
+        this.location = location;
+    }
+
+    void add(FailingTest test) {
+        tests.add(test);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public List<FailingTest> getTests() {
+        return Collections.unmodifiableList(tests);
+    }
+
+    public List<String> getTestClasses() {
+        List<String> output = new ArrayList<>();
+        for (FailingTest test : tests) {
+            if (!output.contains(test.getClassName())) {
+                output.add(test.getClassName());
+            }
+        }
+        return output;
+    }
+
+    /**
+     * @return disjoint sets of test classes, the clusters sharing a test class being merged
+     */
+    public static List<List<String>> getTestClassGroups(List<FailureCluster> clusters) {
+        List<List<String>> groups = new ArrayList<>();
+        for (FailureCluster cluster : clusters) {
+            List<String> group = new ArrayList<>(cluster.getTestClasses());
+            for (Iterator<List<String>> iterator = groups.iterator(); iterator.hasNext(); ) {
+                List<String> previousGroup = iterator.next();
+                if (!Collections.disjoint(previousGroup, group)) {
+                    iterator.remove();
+                    for (String testClass : previousGroup) {
+                        if (!group.contains(testClass)) {
+                            group.add(testClass);
+                        }
+                    }
+                }
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    @Override
+    public String toString() {
+        return "cluster " + id + " (" + location + "): " + tests;
+    }
+}
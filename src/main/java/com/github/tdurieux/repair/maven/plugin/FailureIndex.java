@@ -0,0 +1,150 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
+import org.apache.maven.plugins.surefire.report.ReportTestCase;
+import org.apache.maven.plugins.surefire.report.ReportTestSuite;
+import org.apache.maven.plugins.surefire.report.SurefireReportParser;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.MavenReportException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Failing tests of the reactor, read once from the surefire reports.
+ */
+public class FailureIndex {
+
+    private final List<FailingTest> failingTests = new ArrayList<>();
+
+    private final List<String> failingTestClasses = new ArrayList<>();
+
+    private final List<MavenProject> failingModules = new ArrayList<>();
+
+    private final List<FailingTest> flakyTests = new ArrayList<>();
+
+    public static File getSurefireReportsDirectory(MavenProject module) {
+        return new File(module.getBuild().getDirectory() + "/surefire-reports");
+    }
+
+    public static FailureIndex load(List<MavenProject> modules) {
+        FailureIndex index = new FailureIndex();
+        for (MavenProject module : modules) {
+            SurefireReportParser parser = new SurefireReportParser(Collections.singletonList(getSurefireReportsDirectory(module)), Locale.ENGLISH, new NullConsoleLogger());
+            try {
+                for (ReportTestSuite reportTestSuite : parser.parseXMLReportFiles()) {
+                    index.addSuite(module, reportTestSuite);
+                }
+            } catch (MavenReportException e) {
+                e.printStackTrace();
+            }
+        }
+        return index;
+    }
+
+    private void addSuite(MavenProject module, ReportTestSuite reportTestSuite) {
+        if (reportTestSuite.getNumberOfErrors() + reportTestSuite.getNumberOfFailures() == 0) {
+            return;
+        }
+        if (!failingTestClasses.contains(reportTestSuite.getFullClassName())) {
+            failingTestClasses.add(reportTestSuite.getFullClassName());
+        }
+        if (!failingModules.contains(module)) {
+            failingModules.add(module);
+        }
+        for (ReportTestCase reportTestCase : reportTestSuite.getTestCases()) {
+            if (reportTestCase.hasFailure()) {
+                add(new FailingTest(module, reportTestCase.getFullClassName(), reportTestCase.getName(), reportTestCase.getFailureDetail()));
+            }
+        }
+    }
+
+    void add(FailingTest failingTest) {
+        failingTests.add(failingTest);
+        if (!failingTestClasses.contains(failingTest.getClassName())) {
+            failingTestClasses.add(failingTest.getClassName());
+        }
+        if (!failingModules.contains(failingTest.getModule())) {
+            failingModules.add(failingTest.getModule());
+        }
+    }
+
+    /**
+     * Removes flaky tests from the failing tests, a class or a module is no more
+     * failing when all its failing tests are flaky.
+     *
+     * @param tests identifiers of the flaky tests
+     */
+    public void excludeFlakyTests(Set<String> tests) {
+        List<FailingTest> deterministicTests = new ArrayList<>();
+        for (FailingTest failingTest : failingTests) {
+            if (tests.contains(failingTest.getId())) {
+                flakyTests.add(failingTest);
+            } else {
+                deterministicTests.add(failingTest);
+            }
+        }
+        failingTests.clear();
+        failingTests.addAll(deterministicTests);
+        for (FailingTest flakyTest : flakyTests) {
+            if (!hasFailingTest(flakyTest.getClassName(), null)) {
+                failingTestClasses.remove(flakyTest.getClassName());
+            }
+            if (!hasFailingTest(null, flakyTest.getModule())) {
+                failingModules.remove(flakyTest.getModule());
+            }
+        }
+    }
+
+    private boolean hasFailingTest(String className, MavenProject module) {
+        for (FailingTest failingTest : failingTests) {
+            if (failingTest.getClassName().equals(className) || failingTest.getModule() == module) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the failing tests of the surefire reports that are flaky or not reproducible,
+     * excluded from the repair
+     */
+    public List<FailingTest> getFlakyTests() {
+        return Collections.unmodifiableList(flakyTests);
+    }
+
+    public List<FailingTest> getFailingTests() {
+        return Collections.unmodifiableList(failingTests);
+    }
+
+    public List<String> getFailingTestClasses() {
+        return Collections.unmodifiableList(failingTestClasses);
+    }
+
+    public List<MavenProject> getFailingModules() {
+        return Collections.unmodifiableList(failingModules);
+    }
+
+    /**
+     * Groups the failing tests by failure location, each group being an independent repair job.
+     */
+    public List<FailureCluster> getClusters() {
+        Map<String, FailureCluster> clusters = new LinkedHashMap<>();
+        for (FailingTest failingTest : failingTests) {
+            String location = failingTest.getFailureLocation();
+            FailureCluster cluster = clusters.get(location);
+            if (cluster == null) {
+                cluster = new FailureCluster(clusters.size(), location);
+                clusters.put(location, cluster);
+            }
+            cluster.add(failingTest);
+        }
+        return new ArrayList<>(clusters.values());
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the failing tests several times on a {@link ValidationPool}: a
+ * failing test that both fails and passes is flaky, and a failing test that
+ * passes in every execution is not reproducible. Repairing them would consume
+ * the whole budget of the repair tools.
+ */
+public class FlakyTestDetector {
+
+    public enum Classification {
+
+        /**
+         * Fails in every execution, the test is repaired.
+         */
+        DETERMINISTIC,
+
+        /**
+         * Fails and passes in the executions.
+         */
+        FLAKY,
+
+        /**
+         * Failed in the surefire report but passes in every execution.
+         */
+        NOT_REPRODUCIBLE;
+
+        /**
+         * @return true if the test is excluded from the repair
+         */
+        public boolean isExcluded() {
+            return this != DETERMINISTIC;
+        }
+    }
+
+    private final ValidationPool pool;
+
+    private final int runs;
+
+    private final int threads;
+
+    /**
+     * @param runs number of executions of each test
+     * @param threads number of concurrent executions, usually the size of the pool
+     */
+    public FlakyTestDetector(ValidationPool pool, int runs, int threads) {
+        this.pool = pool;
+        this.runs = runs;
+        this.threads = threads;
+    }
+
+    /**
+     * @return the classification of the tests by identifier, the tests that could
+     * not be executed are not classified
+     */
+    public Map<String, Classification> classify(List<FailingTest> failingTests) throws InterruptedException {
+        // the failing methods of a class are executed together
+        Map<String, List<String>> testsByClass = new LinkedHashMap<>();
+        for (FailingTest failingTest : failingTests) {
+            List<String> tests = testsByClass.get(failingTest.getClassName());
+            if (tests == null) {
+                tests = new ArrayList<>();
+                testsByClass.put(failingTest.getClassName(), tests);
+            }
+            tests.add(failingTest.getId());
+        }
+        List<Callable<TestRunner.Result>> executions = new ArrayList<>();
+        List<List<String>> executedTests = new ArrayList<>();
+        for (final List<String> tests : testsByClass.values()) {
+            for (int i = 0; i < runs; i++) {
+                executions.add(new Callable<TestRunner.Result>() {
+                    @Override
+                    public TestRunner.Result call() throws Exception {
+                        return pool.validate(Collections.<String, byte[]>emptyMap(), tests);
+                    }
+                });
+                executedTests.add(tests);
+            }
+        }
+        List<TestRunner.Result> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, executions.size())));
+        try {
+            List<Future<TestRunner.Result>> futures = executor.invokeAll(executions);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    System.out.println("Unable to execute " + executedTests.get(i) + ": " + e.getCause());
+                    results.add(null);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        List<String> ids = new ArrayList<>();
+        for (FailingTest failingTest : failingTests) {
+            ids.add(failingTest.getId());
+        }
+        return classify(ids, executedTests, results);
+    }
+
+    /**
+     * The tests that were never executed are not classified.
+     *
+     * @param results result of each execution, null if it failed
+     */
+    static Map<String, Classification> classify(List<String> ids, List<List<String>> executedTests, List<TestRunner.Result> results) {
+        Map<String, Integer> nbPassing = new LinkedHashMap<>();
+        Map<String, Integer> nbFailing = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            TestRunner.Result result = results.get(i);
+            if (result == null) {
+                continue;
+            }
+            if (result.getError() != null || result.getRunCount() == 0) {
+                System.out.println("Unable to execute " + executedTests.get(i) + ": " + result);
+                continue;
+            }
+            List<String> passingTests = getPassingTests(executedTests.get(i), result);
+            for (String test : executedTests.get(i)) {
+                Map<String, Integer> counts = passingTests.contains(test) ? nbPassing : nbFailing;
+                Integer count = counts.get(test);
+                counts.put(test, count == null ? 1 : count + 1);
+            }
+        }
+        Map<String, Classification> classification = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (!nbPassing.containsKey(id) && !nbFailing.containsKey(id)) {
+                continue;
+            }
+            if (!nbPassing.containsKey(id)) {
+                classification.put(id, Classification.DETERMINISTIC);
+            } else if (nbFailing.containsKey(id)) {
+                classification.put(id, Classification.FLAKY);
+            } else {
+                classification.put(id, Classification.NOT_REPRODUCIBLE);
+            }
+        }
+        return classification;
+    }
+
+    /**
+     * @return the executed tests that passed, none if the tests could not be executed
+     */
+    static List<String> getPassingTests(List<String> tests, TestRunner.Result result) {
+        List<String> passingTests = new ArrayList<>();
+        if (result.getError() != null || result.getRunCount() == 0) {
+            return passingTests;
+        }
+        for (String test : tests) {
+            boolean failed = false;
+            for (TestRunner.Failure failure : result.getFailures()) {
+                String className = test.substring(0, test.indexOf('#'));
+                String methodName = test.substring(test.indexOf('#') + 1);
+                if (className.equals(failure.getClassName())
+                        && (failure.getMethodName() == null || methodName.equals(failure.getMethodName()))) {
+                    failed = true;
+                    break;
+                }
+            }
+            if (!failed) {
+                passingTests.add(test);
+            }
+        }
+        return passingTests;
+    }
+
+    /**
+     * @return the file recording the classification of the failing tests of the module
+     */
+    public static File getClassificationFile(MavenProject module) {
+        return new File(module.getBuild().getDirectory(), "flaky-tests.properties");
+    }
+
+    /**
+     * @return the recorded classification of the tests whose surefire report is
+     * older than the classification
+     */
+    public static Map<String, Classification> loadClassification(File file, File reportsDirectory) throws IOException {
+        Map<String, Classification> classification = new LinkedHashMap<>();
+        if (!file.exists()) {
+            return classification;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        }
+        for (String test : properties.stringPropertyNames()) {
+            int index = test.indexOf('#');
+            File report = new File(reportsDirectory, "TEST-" + (index == -1 ? test : test.substring(0, index)) + ".xml");
+            // the tests executed again since the classification are classified again
+            if (report.lastModified() <= file.lastModified()) {
+                try {
+                    classification.put(test, Classification.valueOf(properties.getProperty(test)));
+                } catch (IllegalArgumentException e) {
+                    // unknown value, the test is classified again
+                }
+            }
+        }
+        return classification;
+    }
+
+    /**
+     * Adds a classification to the recorded one.
+     */
+    public static void saveClassification(File file, Map<String, Classification> classification) throws IOException {
+        Properties properties = new Properties();
+        if (file.exists()) {
+            try (InputStream input = new FileInputStream(file)) {
+                properties.load(input);
+            }
+        }
+        for (Map.Entry<String, Classification> entry : classification.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().name());
+        }
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (OutputStream output = new FileOutputStream(file)) {
+            properties.store(output, "classification of the failing tests");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Execution of a goal of the plugin in a child Maven process,
+ * the memory of the child JVM being given by a {@link JvmSizing}.
+ */
+public class ForkedExecution {
+
+    /**
+     * Environment variable set in the child processes. Unlike the -D properties,
+     * it cannot be overridden by the configuration of the plugin in the pom.
+     */
+    public static final String FORKED_ENVIRONMENT = "REPAIR_MAVEN_PLUGIN_FORKED";
+
+    private final File pom;
+
+    private final String goal;
+
+    private final Map<String, String> properties = new LinkedHashMap<>();
+
+    private final Map<String, String> environment = new LinkedHashMap<>();
+
+    private boolean offline = false;
+
+    private File logFile;
+
+    /**
+     * @param goal fully qualified goal groupId:artifactId:version:goal
+     */
+    public ForkedExecution(File pom, String goal) {
+        this.pom = pom;
+        this.goal = goal;
+    }
+
+    public ForkedExecution setProperty(String key, String value) {
+        properties.put(key, value);
+        return this;
+    }
+
+    public ForkedExecution setProperties(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            setProperty(key, properties.getProperty(key));
+        }
+        return this;
+    }
+
+    public ForkedExecution setEnvironment(String key, String value) {
+        environment.put(key, value);
+        return this;
+    }
+
+    /**
+     * @return true in a process started by a forked execution
+     */
+    public static boolean isForked() {
+        return "true".equals(System.getenv(FORKED_ENVIRONMENT));
+    }
+
+    public ForkedExecution setOffline(boolean offline) {
+        this.offline = offline;
+        return this;
+    }
+
+    /**
+     * @param logFile file receiving the output of the child, the standard output when null
+     */
+    public ForkedExecution setLogFile(File logFile) {
+        this.logFile = logFile;
+        return this;
+    }
+
+    public List<String> getCommand() {
+        List<String> command = new ArrayList<>();
+        command.add(getMavenExecutable());
+        command.add("-B");
+        if (offline) {
+            command.add("-o");
+        }
+        command.add("-f");
+        command.add(pom.getAbsolutePath());
+        command.add(goal);
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            command.add("-D" + property.getKey() + "=" + property.getValue());
+        }
+        return command;
+    }
+
+    private static String getMavenExecutable() {
+        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
+        String executable = isWindows ? "mvn.cmd" : "mvn";
+        String mavenHome = System.getProperty("maven.home");
+        if (mavenHome != null && new File(mavenHome, "bin/" + executable).exists()) {
+            return new File(mavenHome, "bin/" + executable).getAbsolutePath();
+        }
+        return executable;
+    }
+
+    /**
+     * Runs the goal, and runs it again with more memory after an OutOfMemoryError.
+     *
+     * @param retries maximum number of executions after the first one
+     */
+    public Outcome run(JvmSizing sizing, int retries) throws IOException, InterruptedException {
+        Outcome outcome = run(sizing);
+        for (int i = 0; i < retries && !outcome.isSuccess() && outcome.isOutOfMemory(); i++) {
+            JvmSizing biggerSizing = sizing.grow(outcome.isMetaspaceExhausted());
+            if (biggerSizing == null) {
+                break;
+            }
+            sizing = biggerSizing;
+            System.out.println("Out of memory, retry with " + sizing);
+            outcome = run(sizing);
+        }
+        return outcome;
+    }
+
+    public Outcome run(JvmSizing sizing) throws IOException, InterruptedException {
+        // the options of the user are kept, the last memory options take precedence
+        StringBuilder mavenOpts = new StringBuilder();
+        String userMavenOpts = System.getenv("MAVEN_OPTS");
+        if (userMavenOpts != null && !userMavenOpts.trim().isEmpty()) {
+            mavenOpts.append(userMavenOpts.trim()).append(' ');
+        }
+        for (String option : sizing.getJvmOptions()) {
+            mavenOpts.append(option).append(' ');
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(getCommand())
+                .directory(pom.getAbsoluteFile().getParentFile())
+                .redirectErrorStream(true);
+        processBuilder.environment().put("MAVEN_OPTS", mavenOpts.toString().trim());
+        processBuilder.environment().putAll(environment);
+        processBuilder.environment().put(FORKED_ENVIRONMENT, "true");
+        System.out.println("Fork " + goal + " with " + sizing);
+
+        Process process = processBuilder.start();
+        boolean outOfMemory = false;
+        boolean metaspaceExhausted = false;
+        PrintStream out = logFile == null ? System.out : new PrintStream(new FileOutputStream(logFile, true), true, "UTF-8");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                out.println(line);
+                if (line.contains(OutOfMemoryError.class.getName())) {
+                    outOfMemory = true;
+                    metaspaceExhausted = metaspaceExhausted || line.contains("Metaspace");
+                }
+            }
+        } finally {
+            if (out != System.out) {
+                out.close();
+            }
+        }
+        return new Outcome(process.waitFor(), sizing, outOfMemory, metaspaceExhausted);
+    }
+
+    public static class Outcome {
+
+        private final int exitCode;
+
+        private final JvmSizing sizing;
+
+        private final boolean outOfMemory;
+
+        private final boolean metaspaceExhausted;
+
+        Outcome(int exitCode, JvmSizing sizing, boolean outOfMemory, boolean metaspaceExhausted) {
+            this.exitCode = exitCode;
+            this.sizing = sizing;
+            this.outOfMemory = outOfMemory;
+            this.metaspaceExhausted = metaspaceExhausted;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+
+        public JvmSizing getSizing() {
+            return sizing;
+        }
+
+        public boolean isOutOfMemory() {
+            return outOfMemory;
+        }
+
+        public boolean isMetaspaceExhausted() {
+            return metaspaceExhausted;
+        }
+    }
+}
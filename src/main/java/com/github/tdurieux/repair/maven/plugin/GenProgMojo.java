@@ -3,7 +3,6 @@ package com.github.tdurieux.repair.maven.plugin;
 import fr.inria.astor.core.entities.ProgramVariant;
 import fr.inria.main.evolution.AstorMain;
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -15,7 +14,9 @@ import org.apache.maven.project.MavenProject;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @Mojo( name = "jGenProg", aggregator = true,
         defaultPhase = LifecyclePhase.TEST,
@@ -56,8 +57,15 @@ public class GenProgMojo extends AbstractRepairMojo {
 
     private List<ProgramVariant> output;
 
+    private final List<GenProgWatcher.Listener> listeners = new ArrayList<>();
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (isForkRequested()) {
+            executeForked();
+            return;
+        }
+        final long start = System.currentTimeMillis();
 
         final List<URL> astorClasspath = getAstorClasspath();
         final String systemClasspath = System.getProperty("java.class.path");
@@ -70,65 +78,139 @@ public class GenProgMojo extends AbstractRepairMojo {
         try {
             setGzoltarDebug(true);
             System.setProperty("java.class.path", strClasspath);
-            AstorMain astor = new AstorMain();
-            AstorContext context = createAstorContext();
-            astor.execute(context.getAstorArgs());
-
-            this.output = astor.getEngine().getSolutions();
+            final List<URL> dependencies = getClasspath();
+            if (batch) {
+                List<Callable<List<ProgramVariant>>> jobs = new ArrayList<>();
+                List<List<String>> groups = getFailingTestClassGroups();
+                for (int i = 0; i < groups.size(); i++) {
+                    final List<String> testClasses = groups.get(i);
+                    final File jobOutput = new File(outputDirectory, "cluster-" + i);
+                    jobs.add(new Callable<List<ProgramVariant>>() {
+                        @Override
+                        public List<ProgramVariant> call() throws Exception {
+                            return repair(createAstorContext(testClasses, jobOutput, dependencies), jobOutput);
+                        }
+                    });
+                }
+                this.output = new ArrayList<>();
+                for (List<ProgramVariant> solutions : runJobs(jobs)) {
+                    if (solutions != null) {
+                        this.output.addAll(solutions);
+                    }
+                }
+            } else {
+                this.output = repair(createAstorContext(getFailingTests(), outputDirectory, dependencies), outputDirectory);
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            throw new MojoExecutionException("Unable to repair with " + mode, e);
         } finally {
             System.setProperty("java.class.path", systemClasspath);
         }
+        saveResult(toRepairResult(start), outputDirectory);
     }
 
-    private AstorContext createAstorContext() {
-	    AstorContext context = new AstorContext();
-	    context.out = outputDirectory.getAbsolutePath();
-	    context.Package = packageToInstrument;
-	    context.scope = scope;
-	    context.flThreshold = localisationThreshold;
-        context.seed = seed;
-        context.maxGen = maxgen;
-        context.maxTime = maxtime;
-        context.location = project.getBasedir().getAbsolutePath();
-        context.stopFirst = stopfirst;
-        context.mode = mode;
-        context.javaComplianceLevel = getComplianceLevel();
-        context.skipfaultlocalization = skipfaultlocalization;
+    private RepairResult toRepairResult(long start) {
+        RepairResult repairResult = new RepairResult("astor-" + mode, start, System.currentTimeMillis());
+        for (String test : getFailingTests()) {
+            repairResult.addFailingTest(test);
+        }
+        if (output != null) {
+            // Astor does not expose the test outcomes of its variants
+            for (ProgramVariant variant : output) {
+                repairResult.addCandidate(new RepairResult.Candidate("variant-" + variant.getId(), true, String.valueOf(variant.getPatchDiff()), -1));
+            }
+        }
+        return repairResult;
+    }
 
-        for (int i = 0; i < getFailingTests().size(); i++) {
-            String test = getFailingTests().get(i);
-            context.failing.add(test);
+    private List<ProgramVariant> repair(AstorContext context, File outputDirectory) throws Exception {
+        AstorMain astor = new AstorMain();
+        String[] astorArgs = context.getAstorArgs();
+        // the solutions and the progress are written in progress.jsonl during the search
+        GenProgWatcher watcher = new GenProgWatcher(astor, new File(outputDirectory, "progress.jsonl"), listeners, 1000, getLog());
+        watcher.start();
+        try {
+            astor.execute(astorArgs);
+        } finally {
+            watcher.finish();
         }
 
-        final List<URL> dependencies = getClasspath();
+        return astor.getEngine().getSolutions();
+    }
+
+    private AstorContext createAstorContext(List<String> failingTests, File outputDirectory, List<URL> dependencies) {
+        AstorContext context = new AstorContext()
+                .setOut(outputDirectory.getAbsolutePath())
+                .setPackage(getPackageToInstrument())
+                .setScope(scope)
+                .setFlThreshold(localisationThreshold)
+                .setSeed(seed)
+                .setMaxGen(maxgen)
+                .setMaxTime(maxtime)
+                .setLocation(project.getBasedir().getAbsoluteFile())
+                .setStopFirst(stopfirst)
+                .setMode(mode)
+                .setJavaComplianceLevel(getComplianceLevel())
+                .setSkipFaultLocalization(skipfaultlocalization);
+
+        for (String test : failingTests) {
+            context.addFailing(test);
+        }
 
-        for (MavenProject mavenProject : reactorProjects) {
-            Build build = mavenProject.getBuild();
-            context.srcJavaFolder.add(getRelativePath(build.getSourceDirectory()));
-            context.srcTestFolder.add(getRelativePath(build.getTestSourceDirectory()));
-            context.binJavaFolder.add(getRelativePath(build.getOutputDirectory()));
-            context.binTestFolder.add(getRelativePath(build.getTestOutputDirectory()));
+        for (MavenProject mavenProject : getModulesInScope()) {
+            ModuleMetadata metadata = getModuleMetadata(mavenProject);
+            context.addSrcJavaFolder(getRelativePath(metadata.getSourceDirectory().getPath()));
+            context.addSrcTestFolder(getRelativePath(metadata.getTestSourceDirectory().getPath()));
+            context.addBinJavaFolder(getRelativePath(metadata.getOutputDirectory().getPath()));
+            context.addBinTestFolder(getRelativePath(metadata.getTestOutputDirectory().getPath()));
         }
 
         for (int i = 0; i < dependencies.size(); i++) {
             URL url = dependencies.get(i);
             String path = url.getPath();
-            if (context.binTestFolder.contains(getRelativePath(path))
-                    || context.binJavaFolder.contains(getRelativePath(path))) {
+            if (context.getBinTestFolder().contains(getRelativePath(path))
+                    || context.getBinJavaFolder().contains(getRelativePath(path))) {
                 continue;
             }
-            context.dependencies.add(path);
+            context.addDependency(path);
         }
-        if (context.dependencies.isEmpty()) {
-            context.dependencies.add(dependencies.get(0).getPath());
+        if (context.getDependencies().isEmpty()) {
+            context.addDependency(dependencies.get(0).getPath());
         }
 
-
         return context;
     }
 
+    /**
+     * In incremental mode, defaults to the deepest package containing all the changed files.
+     */
+    private String getPackageToInstrument() {
+        if (packageToInstrument != null || !isIncremental()) {
+            return packageToInstrument;
+        }
+        String commonPackage = null;
+        for (File sourceFolder : getSourceFolders()) {
+            for (File changedFile : getChangeScope().getChangedFiles(Collections.singletonList(sourceFolder))) {
+                String relativePath = sourceFolder.toURI().relativize(changedFile.toURI()).getPath();
+                int lastSlash = relativePath.lastIndexOf('/');
+                String packageName = lastSlash == -1 ? "" : relativePath.substring(0, lastSlash).replace('/', '.');
+                if (commonPackage == null) {
+                    commonPackage = packageName;
+                }
+                // the default package contains all the packages, no restriction
+                while (!commonPackage.isEmpty() && !packageName.equals(commonPackage) && !packageName.startsWith(commonPackage + ".")) {
+                    int lastDot = commonPackage.lastIndexOf('.');
+                    commonPackage = lastDot == -1 ? "" : commonPackage.substring(0, lastDot);
+                }
+            }
+        }
+        if (commonPackage == null || commonPackage.isEmpty()) {
+            return packageToInstrument;
+        }
+        getLog().info("Incremental mode: instrument the package " + commonPackage);
+        return commonPackage;
+    }
+
     private String getRelativePath(String path) {
 	    if (path == null) {
 	        return null;
@@ -158,6 +240,13 @@ public class GenProgMojo extends AbstractRepairMojo {
         return classpath;
     }
 
+    /**
+     * Registers a listener notified of the solutions and of the generations during the search.
+     */
+    public void addListener(GenProgWatcher.Listener listener) {
+        listeners.add(listener);
+    }
+
 	public List<ProgramVariant> getResult() {
 		return output;
 	}
@@ -0,0 +1,266 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import fr.inria.astor.core.entities.ProgramVariant;
+import fr.inria.astor.core.loop.AstorCoreEngine;
+import fr.inria.main.evolution.AstorMain;
+import org.apache.maven.plugin.logging.Log;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Follows an Astor execution from another thread: Astor only returns its
+ * solutions at the end of the search, the watcher polls the engine and
+ * reports the new solutions and the progress of each generation, as JSON lines
+ * in a file and to the listeners.
+ * The progress is sampled from the population at each poll: the generations
+ * completed between two polls are reported as a single event.
+ */
+public class GenProgWatcher extends Thread {
+
+    /**
+     * Receives the events of the watcher, in the thread of the watcher.
+     */
+    public interface Listener {
+
+        void solutionFound(ProgramVariant solution);
+
+        void generationCompleted(Generation generation);
+    }
+
+    private final AstorMain astor;
+
+    private final File file;
+
+    private final List<Listener> listeners;
+
+    private final Log log;
+
+    private final long interval;
+
+    private final long start = System.currentTimeMillis();
+
+    private final Set<Integer> observedVariants = new HashSet<>();
+
+    private int nbSolutions = 0;
+
+    private int generation = 0;
+
+    private volatile boolean running = true;
+
+    private Writer writer;
+
+    /**
+     * @param file file receiving the events of the execution as JSON lines, overwritten
+     * @param interval time between two polls of the engine in ms
+     */
+    public GenProgWatcher(AstorMain astor, File file, List<Listener> listeners, long interval, Log log) {
+        super("genprog-watcher");
+        setDaemon(true);
+        this.astor = astor;
+        this.file = file;
+        this.listeners = new ArrayList<>(listeners);
+        this.interval = interval;
+        this.log = log;
+    }
+
+    @Override
+    public void run() {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            this.writer = writer;
+            while (running) {
+                safePoll();
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            // the events of the end of the search
+            safePoll();
+        } catch (IOException e) {
+            log.warn("Unable to write the progress of GenProg in " + file, e);
+        }
+    }
+
+    /**
+     * Stops the watcher after a last poll of the engine, and waits for it.
+     */
+    public void finish() throws InterruptedException {
+        running = false;
+        interrupt();
+        join();
+    }
+
+    /**
+     * Polls the engine, a failure is logged and the watcher polls again at the next interval.
+     */
+    private void safePoll() throws IOException {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Unable to follow the progress of GenProg", e);
+        }
+    }
+
+    private void poll() throws IOException {
+        AstorCoreEngine engine = astor.getEngine();
+        if (engine == null) {
+            return;
+        }
+        // the lists are modified by the engine without synchronization, the copy
+        // can fail or contain elements not initialized yet
+        List<ProgramVariant> solutions = engine.getSolutions() == null ? new ArrayList<ProgramVariant>() : new ArrayList<>(engine.getSolutions());
+        List<ProgramVariant> variants = engine.getVariants() == null ? new ArrayList<ProgramVariant>() : new ArrayList<>(engine.getVariants());
+        for (; nbSolutions < solutions.size(); nbSolutions++) {
+            ProgramVariant solution = solutions.get(nbSolutions);
+            if (solution == null) {
+                // read again at the next poll
+                break;
+            }
+            write(new JSONObject()
+                    .put("type", "solution")
+                    .put("id", solution.getId())
+                    .put("generation", solution.getGenerationSource())
+                    .put("fitness", solution.getFitness())
+                    .put("patch", String.valueOf(solution.getPatchDiff()))
+                    .put("time", System.currentTimeMillis() - start));
+            for (Listener listener : listeners) {
+                try {
+                    listener.solutionFound(solution);
+                } catch (RuntimeException e) {
+                    log.warn("GenProg listener " + listener + " failed", e);
+                }
+            }
+        }
+
+        int lastGeneration = generation;
+        double bestFitness = Double.MAX_VALUE;
+        double totalFitness = 0;
+        int populationSize = 0;
+        for (ProgramVariant variant : variants) {
+            if (variant == null) {
+                continue;
+            }
+            populationSize++;
+            lastGeneration = Math.max(lastGeneration, variant.getGenerationSource());
+            bestFitness = Math.min(bestFitness, variant.getFitness());
+            totalFitness += variant.getFitness();
+            observedVariants.add(variant.getId());
+        }
+        if (lastGeneration > generation) {
+            generation = lastGeneration;
+            Generation event = new Generation(generation, populationSize, populationSize == 0 ? 0 : bestFitness,
+                    populationSize == 0 ? 0 : totalFitness / populationSize, observedVariants.size(), nbSolutions,
+                    System.currentTimeMillis() - start);
+            write(event.toJSON());
+            for (Listener listener : listeners) {
+                try {
+                    listener.generationCompleted(event);
+                } catch (RuntimeException e) {
+                    log.warn("GenProg listener " + listener + " failed", e);
+                }
+            }
+        }
+    }
+
+    private void write(JSONObject event) throws IOException {
+        writer.write(event.toString());
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * State of the population when a generation is observed, the fitness being the number of failing tests.
+     * All the values are read from the population at the poll, not from Astor's counters.
+     */
+    public static class Generation {
+
+        private final int generation;
+
+        private final int populationSize;
+
+        private final double bestFitness;
+
+        private final double averageFitness;
+
+        private final int observedVariants;
+
+        private final int solutions;
+
+        private final long time;
+
+        Generation(int generation, int populationSize, double bestFitness, double averageFitness, int observedVariants, int solutions, long time) {
+            this.generation = generation;
+            this.populationSize = populationSize;
+            this.bestFitness = bestFitness;
+            this.averageFitness = averageFitness;
+            this.observedVariants = observedVariants;
+            this.solutions = solutions;
+            this.time = time;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        public int getPopulationSize() {
+            return populationSize;
+        }
+
+        public double getBestFitness() {
+            return bestFitness;
+        }
+
+        public double getAverageFitness() {
+            return averageFitness;
+        }
+
+        /**
+         * @return the number of distinct variants seen in the polled populations since the beginning,
+         * a lower bound of the variants created by Astor: the variants created and discarded between
+         * two polls are not seen, and the variants are not necessarily compiled or tested
+         */
+        public int getObservedVariants() {
+            return observedVariants;
+        }
+
+        public int getSolutions() {
+            return solutions;
+        }
+
+        /**
+         * @return the time since the beginning of the search in ms
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public JSONObject toJSON() {
+            return new JSONObject()
+                    .put("type", "generation")
+                    .put("generation", generation)
+                    .put("population", populationSize)
+                    .put("bestFitness", bestFitness)
+                    .put("averageFitness", averageFitness)
+                    .put("observedVariants", observedVariants)
+                    .put("solutions", solutions)
+                    .put("time", time);
+        }
+
+        @Override
+        public String toString() {
+            return "generation " + generation + ": best fitness " + bestFitness + ", average fitness " + averageFitness
+                    + ", " + observedVariants + " observed variants, " + solutions + " solutions, " + time + "ms";
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Java files changed in the working tree relative to a base revision, or untracked,
+ * computed from the local git repository.
+ */
+public class GitChangeScope {
+
+    private final String baseRevision;
+
+    private final Set<File> changedFiles;
+
+    GitChangeScope(String baseRevision, Set<File> changedFiles) {
+        this.baseRevision = baseRevision;
+        this.changedFiles = changedFiles;
+    }
+
+    /**
+     * Lists the files changed since the base revision and the untracked files
+     * in the repository containing the directory.
+     */
+    public static GitChangeScope compute(File directory, String baseRevision) throws IOException {
+        File topLevel = new File(git(directory, "rev-parse", "--show-toplevel").trim());
+        // -z: the paths are neither quoted nor escaped
+        String changedFiles = git(topLevel, "diff", "--name-only", "-z", "--no-ext-diff",
+                "--diff-filter=AMR", baseRevision, "--", "*.java");
+        String untrackedFiles = git(topLevel, "ls-files", "--others", "--exclude-standard", "-z", "--", "*.java");
+        return parse(topLevel, baseRevision, changedFiles, untrackedFiles);
+    }
+
+    /**
+     * @return the commit checked out in the repository containing the directory
+     */
+    public static String getHead(File directory) throws IOException {
+        return git(directory, "rev-parse", "HEAD").trim();
+    }
+
+    /**
+     * @param pathLists NUL separated paths relative to the root of the repository
+     */
+    static GitChangeScope parse(File root, String baseRevision, String... pathLists) throws IOException {
+        Set<File> changedFiles = new LinkedHashSet<>();
+        for (String pathList : pathLists) {
+            for (String path : pathList.split("\0")) {
+                if (!path.isEmpty()) {
+                    changedFiles.add(new File(root, path).getCanonicalFile());
+                }
+            }
+        }
+        return new GitChangeScope(baseRevision, changedFiles);
+    }
+
+    public String getBaseRevision() {
+        return baseRevision;
+    }
+
+    public Set<File> getChangedFiles() {
+        return Collections.unmodifiableSet(changedFiles);
+    }
+
+    public boolean isChanged(File file) {
+        return changedFiles.contains(canonical(file));
+    }
+
+    /**
+     * @param roots source folders or source files
+     * @return the changed files contained in the roots
+     */
+    public List<File> getChangedFiles(Collection<File> roots) {
+        List<File> output = new ArrayList<>();
+        for (File changedFile : changedFiles) {
+            for (File root : roots) {
+                File canonicalRoot = canonical(root);
+                if (changedFile.equals(canonicalRoot)
+                        || changedFile.getPath().startsWith(canonicalRoot.getPath() + File.separator)) {
+                    output.add(changedFile);
+                    break;
+                }
+            }
+        }
+        return output;
+    }
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static String git(File directory, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(directory)
+                .redirectErrorStream(true)
+                .start();
+        String output = read(process.getInputStream());
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("git " + args[0] + " failed in " + directory + ": " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for git", e);
+        }
+        return output;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
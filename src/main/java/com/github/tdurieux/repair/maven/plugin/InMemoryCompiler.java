@@ -0,0 +1,180 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the modified compilation units of a candidate patch in memory,
+ * against the compiled classes of the rest of the project.
+ *
+ * The file manager is kept between compilations, the archives and folders of
+ * the classpath are opened and indexed once. Nothing is written on disk.
+ */
+public class InMemoryCompiler implements Closeable {
+
+    private final JavaCompiler compiler;
+
+    private final StandardJavaFileManager fileManager;
+
+    private final List<String> options = new ArrayList<>();
+
+    /**
+     * @param classpath dependencies and output folders of the project
+     */
+    public InMemoryCompiler(List<URL> classpath, int complianceLevel) {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new RuntimeException("No Java compiler available, the plugin must run with a JDK.");
+        }
+        fileManager = compiler.getStandardFileManager(null, null, null);
+        StringBuilder classpathString = new StringBuilder();
+        for (URL url : classpath) {
+            if (classpathString.length() > 0) {
+                classpathString.append(File.pathSeparatorChar);
+            }
+            classpathString.append(new File(url.getPath()).getAbsolutePath());
+        }
+        complianceLevel = Math.max(complianceLevel, getMinimumComplianceLevel());
+        String version = complianceLevel < 9 ? "1." + complianceLevel : Integer.toString(complianceLevel);
+        options.addAll(Arrays.asList("-classpath", classpathString.toString(), "-source", version, "-target", version, "-g", "-nowarn", "-proc:none"));
+    }
+
+    /**
+     * @return the oldest source version accepted by the running compiler,
+     * javac 9 dropped Java 5, javac 12 Java 6 and javac 20 Java 7
+     */
+    private static int getMinimumComplianceLevel() {
+        int latest = SourceVersion.latest().ordinal();
+        if (latest >= 20) {
+            return 8;
+        }
+        if (latest >= 12) {
+            return 7;
+        }
+        if (latest >= 9) {
+            return 6;
+        }
+        return 0;
+    }
+
+    /**
+     * @param sources content of the compilation units by qualified name of their main class
+     */
+    public synchronized Compilation compile(Map<String, String> sources) {
+        List<JavaFileObject> compilationUnits = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            compilationUnits.add(new SourceFile(source.getKey(), source.getValue()));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager memoryFileManager = new MemoryFileManager(fileManager);
+        boolean success = compiler.getTask(null, memoryFileManager, diagnostics, options, null, compilationUnits).call();
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                String name = diagnostic.getSource() == null ? "" : diagnostic.getSource().getName() + ":" + diagnostic.getLineNumber() + ": ";
+                errors.add(name + diagnostic.getMessage(null));
+            }
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        if (success) {
+            for (Map.Entry<String, ByteArrayOutputStream> entry : memoryFileManager.classes.entrySet()) {
+                classes.put(entry.getKey(), entry.getValue().toByteArray());
+            }
+        }
+        return new Compilation(success, classes, errors);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileManager.close();
+    }
+
+    public static class Compilation {
+
+        private final boolean success;
+
+        private final Map<String, byte[]> classes;
+
+        private final List<String> errors;
+
+        Compilation(boolean success, Map<String, byte[]> classes, List<String> errors) {
+            this.success = success;
+            this.classes = classes;
+            this.errors = errors;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return the bytecode of the compiled classes, including the nested classes, by binary name
+         */
+        public Map<String, byte[]> getClasses() {
+            return Collections.unmodifiableMap(classes);
+        }
+
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String content;
+
+        SourceFile(String className, String content) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> classes = new LinkedHashMap<>();
+
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, final String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    classes.put(className, output);
+                    return output;
+                }
+            };
+        }
+    }
+}
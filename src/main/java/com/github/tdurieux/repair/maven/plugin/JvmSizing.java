@@ -0,0 +1,162 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory and garbage collector settings of a forked repair JVM, derived from
+ * the size of the sources (the Spoon model) and of the classpath (the loaded classes).
+ */
+public class JvmSizing {
+
+    private static final long MB = 1024 * 1024;
+
+    static final int MIN_HEAP = 512;
+
+    static final int MIN_METASPACE = 256;
+
+    static final int MAX_METASPACE = 2048;
+
+    /** Heap size from which G1 is preferred to the parallel collector. */
+    static final int G1_THRESHOLD = 4096;
+
+    private final int heap;
+
+    private final int metaspace;
+
+    private final int maxHeap;
+
+    JvmSizing(int heap, int metaspace, int maxHeap) {
+        this.maxHeap = Math.max(maxHeap, MIN_HEAP);
+        this.heap = Math.max(MIN_HEAP, Math.min(heap, this.maxHeap));
+        this.metaspace = Math.max(MIN_METASPACE, Math.min(metaspace, MAX_METASPACE));
+    }
+
+    /**
+     * @param maxHeap upper bound of the heap in MB
+     */
+    public static JvmSizing compute(Collection<File> sourceFolders, Collection<URL> classpath, int maxHeap) {
+        long sourceSize = 0;
+        for (File sourceFolder : sourceFolders) {
+            sourceSize += size(sourceFolder, ".java");
+        }
+        long classpathSize = 0;
+        for (URL url : classpath) {
+            classpathSize += size(new File(url.getPath()), ".class");
+        }
+        return compute(sourceSize, classpathSize, maxHeap);
+    }
+
+    static JvmSizing compute(long sourceSize, long classpathSize, int maxHeap) {
+        // a Spoon model takes about 64 times the size of its sources
+        long heap = MIN_HEAP + 64 * sourceSize / MB + 2 * classpathSize / MB;
+        long metaspace = MIN_METASPACE + classpathSize / MB;
+        return new JvmSizing((int) Math.min(heap, Integer.MAX_VALUE), (int) Math.min(metaspace, Integer.MAX_VALUE), maxHeap);
+    }
+
+    /**
+     * @param metaspaceExhausted true if the previous execution ran out of metaspace
+     * @return the sizing to retry with after an OutOfMemoryError, null if no more memory can be given
+     */
+    public JvmSizing grow(boolean metaspaceExhausted) {
+        if (metaspaceExhausted) {
+            if (metaspace >= MAX_METASPACE) {
+                return null;
+            }
+            return new JvmSizing(heap, metaspace * 2, maxHeap);
+        }
+        if (heap >= maxHeap) {
+            return null;
+        }
+        return new JvmSizing(heap * 2, metaspace, maxHeap);
+    }
+
+    public int getHeap() {
+        return heap;
+    }
+
+    public int getMetaspace() {
+        return metaspace;
+    }
+
+    public boolean isG1() {
+        return heap >= G1_THRESHOLD;
+    }
+
+    /**
+     * @return the options of the forked JVM, limited to the ones supported by the running JVM
+     */
+    public List<String> getJvmOptions() {
+        return getJvmOptions(System.getProperty("java.version"));
+    }
+
+    List<String> getJvmOptions(String javaVersion) {
+        List<String> options = new ArrayList<>();
+        options.add("-Xmx" + heap + "m");
+        options.add("-XX:MaxMetaspaceSize=" + metaspace + "m");
+        options.add(isG1() ? "-XX:+UseG1GC" : "-XX:+UseParallelGC");
+        if (supportsExitOnOutOfMemoryError(javaVersion)) {
+            // exit at the first OutOfMemoryError instead of continuing in a broken state
+            options.add("-XX:+ExitOnOutOfMemoryError");
+        }
+        return options;
+    }
+
+    /**
+     * @param javaVersion the java.version property, e.g. 1.8.0_92 or 11.0.2
+     * @return true if the JVM knows -XX:+ExitOnOutOfMemoryError (8u92 and later)
+     */
+    static boolean supportsExitOnOutOfMemoryError(String javaVersion) {
+        if (javaVersion == null) {
+            return false;
+        }
+        Matcher matcher = Pattern.compile("^1\\.(\\d+)(?:\\.\\d+)?(?:_(\\d+))?").matcher(javaVersion);
+        if (matcher.find()) {
+            int major = Integer.parseInt(matcher.group(1));
+            int update = matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2));
+            return major > 8 || (major == 8 && update >= 92);
+        }
+        // 9 and later use the new version scheme
+        return javaVersion.matches("^\\d+.*");
+    }
+
+    private static long size(File file, final String extension) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        if (!file.isDirectory()) {
+            return 0;
+        }
+        final long[] size = {0};
+        try {
+            Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    if (path.getFileName().toString().endsWith(extension)) {
+                        size[0] += attrs.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return size[0];
+    }
+
+    @Override
+    public String toString() {
+        return "heap " + heap + "m, metaspace " + metaspace + "m, " + (isG1() ? "G1" : "parallel") + " GC";
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * Folders and Java version of a module, read once from its model.
+ */
+public class ModuleMetadata {
+
+    private static final String COMPILER_PLUGIN = "org.apache.maven.plugins:maven-compiler-plugin";
+
+    private final File sourceDirectory;
+
+    private final File testSourceDirectory;
+
+    private final File generatedSourceDirectory;
+
+    private final File outputDirectory;
+
+    private final File testOutputDirectory;
+
+    private final int complianceLevel;
+
+    ModuleMetadata(File sourceDirectory, File testSourceDirectory, File generatedSourceDirectory, File outputDirectory, File testOutputDirectory, int complianceLevel) {
+        this.sourceDirectory = sourceDirectory;
+        this.testSourceDirectory = testSourceDirectory;
+        this.generatedSourceDirectory = generatedSourceDirectory;
+        this.outputDirectory = outputDirectory;
+        this.testOutputDirectory = testOutputDirectory;
+        this.complianceLevel = complianceLevel;
+    }
+
+    public static ModuleMetadata of(MavenProject mavenProject) {
+        Build build = mavenProject.getBuild();
+        return new ModuleMetadata(
+                new File(build.getSourceDirectory()),
+                new File(build.getTestSourceDirectory()),
+                new File(build.getOutputDirectory() + "/generated-sources"),
+                new File(build.getOutputDirectory()),
+                new File(build.getTestOutputDirectory()),
+                getComplianceLevel(mavenProject));
+    }
+
+    /**
+     * The configuration of the compiler plugin takes precedence over the properties, release over source.
+     *
+     * @return the Java version of the sources of the module, -1 if it is not specified
+     */
+    private static int getComplianceLevel(MavenProject mavenProject) {
+        Plugin compilerPlugin = mavenProject.getPlugin(COMPILER_PLUGIN);
+        if (compilerPlugin != null && compilerPlugin.getConfiguration() instanceof Xpp3Dom) {
+            Xpp3Dom configuration = (Xpp3Dom) compilerPlugin.getConfiguration();
+            for (String parameter : new String[] {"release", "source"}) {
+                Xpp3Dom child = configuration.getChild(parameter);
+                int complianceLevel = child == null ? -1 : parseComplianceLevel(child.getValue());
+                if (complianceLevel != -1) {
+                    return complianceLevel;
+                }
+            }
+        }
+        Properties properties = mavenProject.getProperties();
+        if (properties != null) {
+            for (String property : new String[] {"maven.compiler.release", "maven.compiler.source", "maven.compile.source"}) {
+                int complianceLevel = parseComplianceLevel(properties.getProperty(property));
+                if (complianceLevel != -1) {
+                    return complianceLevel;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param version a Java version: 1.8, 8, 11, 17.0.2, 1.8.0_292
+     * @return the major version, -1 if the version cannot be parsed
+     */
+    public static int parseComplianceLevel(String version) {
+        if (version == null) {
+            return -1;
+        }
+        version = version.trim();
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end))) {
+            end++;
+        }
+        if (end == 0) {
+            return -1;
+        }
+        return Integer.parseInt(version.substring(0, end));
+    }
+
+    public File getSourceDirectory() {
+        return sourceDirectory;
+    }
+
+    public File getTestSourceDirectory() {
+        return testSourceDirectory;
+    }
+
+    public File getGeneratedSourceDirectory() {
+        return generatedSourceDirectory;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public File getTestOutputDirectory() {
+        return testOutputDirectory;
+    }
+
+    /**
+     * @return the Java version of the sources of the module, -1 if it is not specified
+     */
+    public int getComplianceLevel() {
+        return complianceLevel;
+    }
+}
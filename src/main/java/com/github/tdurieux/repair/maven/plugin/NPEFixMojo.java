@@ -2,7 +2,6 @@ package com.github.tdurieux.repair.maven.plugin;
 
 import exceptionparser.StackTrace;
 import exceptionparser.StackTraceElement;
-import exceptionparser.StackTraceParser;
 import fr.inria.spirals.npefix.config.Config;
 import fr.inria.spirals.npefix.main.DecisionServer;
 import fr.inria.spirals.npefix.main.all.DefaultRepairStrategy;
@@ -26,38 +25,63 @@ import fr.inria.spirals.npefix.resi.strategies.Strat2A;
 import fr.inria.spirals.npefix.resi.strategies.Strat2B;
 import fr.inria.spirals.npefix.resi.strategies.Strat3;
 import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.maven.plugins.surefire.report.ReportTestCase;
-import org.apache.maven.plugins.surefire.report.ReportTestSuite;
-import org.apache.maven.plugins.surefire.report.SurefireReportParser;
-import org.apache.maven.project.MavenProject;
-import org.apache.maven.reporting.MavenReportException;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Mojo( name = "npefix", aggregator = true,
         defaultPhase = LifecyclePhase.TEST,
         requiresDependencyResolution = ResolutionScope.TEST)
 public class NPEFixMojo extends AbstractRepairMojo {
 
+    /**
+     * Environment variables configuring the partitions of the batch mode. Unlike the
+     * -D properties, they cannot be overridden by the configuration of the plugin in the pom.
+     */
+    private static final String PARTITION_TESTS_ENVIRONMENT = "REPAIR_MAVEN_PLUGIN_NPEFIX_TESTS";
+
+    private static final String PARTITION_PORT_ENVIRONMENT = "REPAIR_MAVEN_PLUGIN_NPEFIX_PORT";
+
+    private static final String PARTITION_DIRECTORY_ENVIRONMENT = "REPAIR_MAVEN_PLUGIN_NPEFIX_DIRECTORY";
+
+    /**
+     * Number of executions of a partition whose decision server port was taken meanwhile.
+     */
+    private static final int PORT_RETRIES = 3;
+
     private static String HARDCODED_NPEFIX_VERSION = "0.7";
     /**
      * Location of the file.
@@ -74,15 +98,77 @@ public class NPEFixMojo extends AbstractRepairMojo {
     @Parameter( defaultValue = "100", property = "laps", required = true )
     private int nbIteration;
 
+    /**
+     * Stops the exploration at the first lapse that makes the failing tests pass.
+     */
+    @Parameter( defaultValue = "false", property = "stopfirst")
+    private boolean stopFirst;
+
     @Parameter( defaultValue = "class", property = "scope", required = true )
     private String scope;
 
+    /**
+     * Builds the model used to print the patches during the repair instead of after it,
+     * both models are in memory at the same time.
+     */
+    @Parameter( defaultValue = "false", property = "overlapModelBuild" )
+    private boolean overlapModelBuild;
+
+    /**
+     * Number of partitions of the batch mode repaired concurrently, the number of
+     * processors when 0. Each partition is a child Maven process whose heap can
+     * reach forkMaxHeap.
+     */
+    @Parameter( defaultValue = "0", property = "partitionThreads" )
+    private int partitionThreads;
+
+    /**
+     * Builds the models with the source files of the failing stack traces and the files
+     * they reference only, the other classes are read from the compiled classes. The
+     * scope is ignored: all the frames of the stack traces are in the model.
+     */
+    @Parameter( defaultValue = "false", property = "lazyModel" )
+    private boolean lazyModel;
+
     @Parameter( defaultValue = "default", property = "strategy", required = true )
     private String repairStrategy;
 
+    /**
+     * Success statistics of the strategies used by the learned selector,
+     * stored by default in the local repository for each project.
+     */
+    @Parameter( property = "strategyStatistics" )
+    private File strategyStatistics;
+
+    /**
+     * Only repairs these failing tests (class#method, comma separated).
+     */
+    @Parameter( property = "npeTests" )
+    private String npeTestFilter;
+
+    /**
+     * Port of the NPEFix decision server, the default port of NPEFix when -1.
+     */
+    @Parameter( defaultValue = "-1", property = "npefixPort" )
+    private int npefixPort;
+
     private NPEOutput result;
 
+    private RepairResult repairResult;
+
     public void execute() throws MojoExecutionException {
+        if (isForkRequested()) {
+            executeForked();
+            return;
+        }
+        readPartitionEnvironment();
+        if (batch && npeTestFilter == null) {
+            executePartitions();
+            return;
+        }
+        if (npefixPort != -1) {
+            setServerPort(npefixPort);
+        }
         List<Pair<String, Set<File>>> npeTests = getNPETest();
 
         try {
@@ -93,13 +179,16 @@ public class NPEFixMojo extends AbstractRepairMojo {
         }
         final List<URL> dependencies = getClasspath();
         Set<File> sourceFolders = new HashSet<>();
-        if ("project".equals(scope)) {
+        if (lazyModel) {
+            sourceFolders = getStackTraceSourceFiles();
+        } else if ("project".equals(scope)) {
             sourceFolders = new HashSet<>(getSourceFolders());
         } else {
             for (Pair<String, Set<File>> test : npeTests) {
                 sourceFolders.addAll(test.getValue());
             }
         }
+        sourceFolders = new HashSet<>(restrictToChanges(sourceFolders));
         List<File> testFolders = getTestFolders();
 
         classpath(dependencies);
@@ -154,9 +243,66 @@ public class NPEFixMojo extends AbstractRepairMojo {
                 tests.add(npeTest.getKey());
             }
         }
+        Future<spoon.Launcher> model = null;
+        if (overlapModelBuild) {
+            // the model used to print the patches does not depend on the run, it is built meanwhile
+            final Set<File> modelSources = sourceFolders;
+            ExecutorService modelExecutor = Executors.newSingleThreadExecutor();
+            model = modelExecutor.submit(new Callable<spoon.Launcher>() {
+                @Override
+                public spoon.Launcher call() {
+                    return buildModel(modelSources, dependencies);
+                }
+            });
+            modelExecutor.shutdown();
+        }
+
         this.result = run(npefix, tests);
 
+        spoon.Launcher spoon;
+        if (model == null) {
+            spoon = buildModel(sourceFolders, dependencies);
+        } else {
+            try {
+                spoon = model.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Unable to build the model of " + sourceFolders, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
 
+        JSONObject jsonObject = result.toJSON(spoon);
+        jsonObject.put("endInit", initDate.getTime());
+        long timestamp = new Date().getTime();
+        try {
+            File searchSpaceFile = new File(resultDirectory.getAbsolutePath() + "/searchspace_" + timestamp + ".bin");
+            storeSearchSpace(searchSpaceFile);
+            try (SearchSpaceStore searchSpace = SearchSpaceStore.open(searchSpaceFile);
+                 FileWriter writer = new FileWriter(resultDirectory.getAbsolutePath() + "/patches_" + timestamp + ".json")) {
+                String json = jsonObject.toString();
+                if (searchSpace.size() == 0) {
+                    writer.write(json);
+                } else {
+                    // the search space is streamed from the store instead of being added to the JSON object
+                    writer.write(json.substring(0, json.lastIndexOf('}')));
+                    if (jsonObject.length() > 0) {
+                        writer.write(',');
+                    }
+                    writer.write("\"searchSpace\":");
+                    searchSpace.writeJSONArray(writer);
+                    writer.write('}');
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        this.repairResult = toRepairResult(jsonObject, tests, initDate.getTime(), timestamp);
+        saveResult(repairResult, resultDirectory);
+    }
+
+    private spoon.Launcher buildModel(Set<File> sourceFolders, List<URL> dependencies) {
         spoon.Launcher spoon = new spoon.Launcher();
         for (File s : sourceFolders) {
             spoon.addInputResource(s.getAbsolutePath());
@@ -164,18 +310,239 @@ public class NPEFixMojo extends AbstractRepairMojo {
 
         spoon.getModelBuilder().setSourceClasspath(classpath(dependencies).split(File.pathSeparatorChar + ""));
         spoon.buildModel();
+        return spoon;
+    }
 
-        JSONObject jsonObject = result.toJSON(spoon);
-        jsonObject.put("endInit", initDate.getTime());
+    /**
+     * Repairs the groups of NPEs failing at the same location in concurrent child processes,
+     * each one with its own decision server and output, and merges their patches. At most
+     * partitionThreads partitions are executed at the same time.
+     */
+    private void executePartitions() throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        final List<List<String>> partitions = new ArrayList<>();
+        for (FailureCluster cluster : getFailureClusters()) {
+            List<String> tests = new ArrayList<>();
+            for (FailingTest failingTest : cluster.getTests()) {
+                if (failingTest.getRootCause() != null && isRepairable(failingTest.getRootCause())) {
+                    tests.add(failingTest.getId());
+                }
+            }
+            if (!tests.isEmpty()) {
+                partitions.add(tests);
+            }
+        }
+        if (partitions.isEmpty()) {
+            throw new RuntimeException("No failing test with NullPointerException or the NPE occurred outside the source.");
+        }
+        final JvmSizing sizing = JvmSizing.compute(getSourceFolders(), getClasspath(), forkMaxHeap);
+        List<Callable<JSONObject>> jobs = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            final List<String> tests = partitions.get(i);
+            final File partitionDirectory = new File(outputDirectory, "partition-" + i);
+            jobs.add(new Callable<JSONObject>() {
+                @Override
+                public JSONObject call() throws Exception {
+                    partitionDirectory.mkdirs();
+                    StringBuilder testList = new StringBuilder();
+                    for (String test : tests) {
+                        testList.append(testList.length() == 0 ? "" : ",").append(test);
+                    }
+                    File logFile = new File(partitionDirectory, "npefix.log");
+                    ForkedExecution.Outcome outcome;
+                    int retries = 0;
+                    long logLength;
+                    do {
+                        logLength = logFile.length();
+                        outcome = createForkedExecution()
+                                .setEnvironment(PARTITION_TESTS_ENVIRONMENT, testList.toString())
+                                .setEnvironment(PARTITION_PORT_ENVIRONMENT, Integer.toString(getFreePort()))
+                                .setEnvironment(PARTITION_DIRECTORY_ENVIRONMENT, partitionDirectory.getAbsolutePath())
+                                .setLogFile(logFile)
+                                .run(sizing, forkRetries);
+                        // the free port can be taken by another process before the decision server binds it
+                    } while (!outcome.isSuccess() && isPortInUse(logFile, logLength) && retries++ < PORT_RETRIES);
+                    if (!outcome.isSuccess()) {
+                        throw new MojoExecutionException("The repair of " + tests + " failed with the exit code " + outcome.getExitCode()
+                                + ", see " + logFile);
+                    }
+                    return readPatches(partitionDirectory);
+                }
+            });
+        }
+        int nbThreads = partitionThreads > 0 ? partitionThreads : Runtime.getRuntime().availableProcessors();
+        List<JSONObject> outputs = runJobs(jobs, nbThreads);
+
+        JSONObject patches = new JSONObject();
+        List<String> allTests = new ArrayList<>();
+        for (List<String> tests : partitions) {
+            allTests.addAll(tests);
+        }
+        RepairResult repairResult = new RepairResult("npefix", start, System.currentTimeMillis());
+        for (String test : allTests) {
+            repairResult.addFailingTest(test);
+        }
+        for (int i = 0; i < outputs.size(); i++) {
+            if (outputs.get(i) != null) {
+                mergePatches(patches, outputs.get(i));
+                addCandidates(repairResult, outputs.get(i), "partition-" + i + "-");
+            }
+        }
+        if (!resultDirectory.exists()) {
+            resultDirectory.mkdirs();
+        }
+        try (FileWriter writer = new FileWriter(resultDirectory.getAbsolutePath() + "/patches_" + new Date().getTime() + ".json")) {
+            patches.write(writer);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write the patches in " + resultDirectory, e);
+        }
+        this.repairResult = repairResult;
+        saveResult(repairResult, resultDirectory);
+    }
+
+    /**
+     * Configures the execution of a partition from the environment, the results
+     * are stored by the parent process.
+     */
+    private void readPartitionEnvironment() {
+        String tests = System.getenv(PARTITION_TESTS_ENVIRONMENT);
+        if (tests == null) {
+            return;
+        }
+        npeTestFilter = tests;
+        npefixPort = Integer.parseInt(System.getenv(PARTITION_PORT_ENVIRONMENT));
+        outputDirectory = new File(System.getenv(PARTITION_DIRECTORY_ENVIRONMENT));
+        resultDirectory = outputDirectory;
+        batch = false;
+        storeResults = false;
+    }
+
+    /**
+     * @return true if the decision server could not bind its port, according to the log written after offset
+     */
+    private static boolean isPortInUse(File logFile, long offset) throws IOException {
+        if (!logFile.exists()) {
+            return false;
+        }
+        byte[] content = Files.readAllBytes(logFile.toPath());
+        String log = new String(content, (int) Math.min(offset, content.length), (int) Math.max(0, content.length - offset), StandardCharsets.UTF_8);
+        return log.contains("java.net.BindException") || log.contains("Address already in use");
+    }
+
+    /**
+     * @return the last patches written in the folder
+     */
+    private static JSONObject readPatches(File directory) throws IOException {
+        File lastPatches = null;
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].getName().startsWith("patches_") && files[i].getName().endsWith(".json")
+                    && (lastPatches == null || files[i].getName().compareTo(lastPatches.getName()) > 0)) {
+                lastPatches = files[i];
+            }
+        }
+        if (lastPatches == null) {
+            throw new IOException("No patches in " + directory);
+        }
+        return new JSONObject(new String(Files.readAllBytes(lastPatches.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends the arrays (executions, search space) of the patches of a partition to the merged patches,
+     * the other values are the ones of the first partition.
+     */
+    private static void mergePatches(JSONObject merged, JSONObject patches) {
+        Iterator<String> keys = patches.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            JSONArray array = patches.optJSONArray(key);
+            if (array == null) {
+                if (!merged.has(key)) {
+                    merged.put(key, patches.opt(key));
+                }
+                continue;
+            }
+            JSONArray mergedArray = merged.optJSONArray(key);
+            if (mergedArray == null) {
+                mergedArray = new JSONArray();
+                merged.put(key, mergedArray);
+            }
+            for (int i = 0; i < array.length(); i++) {
+                mergedArray.put(array.get(i));
+            }
+        }
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * The port of the decision server is not configurable in NPEFix, it is set by reflection
+     * in its configuration singleton. This depends on the private field serverPort of
+     * {@link Config}, the repair fails instead of using the default port if it is renamed.
+     */
+    private static void setServerPort(int port) {
         try {
+            Field field = Config.class.getDeclaredField("serverPort");
+            field.setAccessible(true);
+            field.setInt(Config.CONFIG, port);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to set the port of the decision server", e);
+        }
+    }
+
+    private RepairResult toRepairResult(JSONObject jsonObject, List<String> tests, long start, long end) {
+        RepairResult repairResult = new RepairResult("npefix", start, end);
+        for (String test : tests) {
+            repairResult.addFailingTest(test);
+        }
+        addCandidates(repairResult, jsonObject, "");
+        return repairResult;
+    }
+
+    private static void addCandidates(RepairResult repairResult, JSONObject jsonObject, String idPrefix) {
+        JSONArray executions = jsonObject.optJSONArray("executions");
+        for (int i = 0; executions != null && i < executions.length(); i++) {
+            JSONObject execution = executions.getJSONObject(i);
+            JSONObject executionResult = execution.optJSONObject("result");
+            boolean success = executionResult != null && executionResult.optBoolean("success");
+            long duration = execution.has("startDate") && execution.has("endDate") ? execution.optLong("endDate") - execution.optLong("startDate") : -1;
+            // the lapse only records whether all its tests passed, the outcome of each test is unknown
+            repairResult.addCandidate(new RepairResult.Candidate(idPrefix + "lapse-" + i, success, execution.optString("diff", null), duration));
+        }
+    }
+
+    /**
+     * Stores the decisions of the search space with the number of laps that used them.
+     * The decisions of the laps are copies received from the test JVMs, they are
+     * matched with the search space by their JSON (location, strategy and value).
+     */
+    private void storeSearchSpace(File file) throws IOException {
+        Map<String, int[]> lapsByDecision = new HashMap<>();
+        for (Lapse lapse : result) {
+            boolean valid = lapse.getOracle().isValid();
+            for (Decision decision : lapse.getDecisions()) {
+                String key = decision.toJSON().toString();
+                int[] laps = lapsByDecision.get(key);
+                if (laps == null) {
+                    laps = new int[2];
+                    lapsByDecision.put(key, laps);
+                }
+                laps[0]++;
+                if (valid) {
+                    laps[1]++;
+                }
+            }
+        }
+        try (SearchSpaceStore.Builder store = SearchSpaceStore.create(file)) {
             for (Decision decision : CallChecker.strategySelector.getSearchSpace()) {
-                jsonObject.append("searchSpace", decision.toJSON());
+                String key = decision.toJSON().toString();
+                int[] laps = lapsByDecision.get(key);
+                store.add(key, laps == null ? 0 : laps[0], laps == null ? 0 : laps[1]);
             }
-            FileWriter writer = new FileWriter(resultDirectory.getAbsolutePath() + "/patches_" + new Date().getTime() + ".json");
-            jsonObject.write(writer);
-            writer.close();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -202,6 +569,8 @@ public class NPEFixMojo extends AbstractRepairMojo {
         case "mono":
             Config.CONFIG.setMultiPoints(false);
             return multipleRuns(npefix, npeTests, new MonoExplorerSelector());
+        case "learned":
+            return learnedRuns(npefix, npeTests);
         case "greedy":
             return multipleRuns(npefix, npeTests, new GreedySelector());
         case "random":
@@ -210,6 +579,97 @@ public class NPEFixMojo extends AbstractRepairMojo {
         return null;
     }
 
+    /**
+     * Explores the strategies by decreasing success rate in the previous runs on the project,
+     * and records the laps of this run.
+     */
+    private NPEOutput learnedRuns(Launcher npefix, List<String> npeTests) {
+        List<Strategy> candidateStrategies = new ArrayList<>();
+        if (!repairStrategy.toLowerCase().equals("TryCatch".toLowerCase())) {
+            candidateStrategies.add(new Strat1A());
+            candidateStrategies.add(new Strat1B());
+            candidateStrategies.add(new Strat2A());
+            candidateStrategies.add(new Strat2B());
+            candidateStrategies.add(new Strat3());
+        }
+        for (ReturnType returnType : new ReturnType[] {ReturnType.NULL, ReturnType.VAR, ReturnType.NEW, ReturnType.VOID}) {
+            candidateStrategies.add(new Strat4(returnType));
+        }
+        Map<String, Strategy> strategies = new LinkedHashMap<>();
+        for (Strategy strategy : candidateStrategies) {
+            strategies.put(getStrategyName(strategy), strategy);
+        }
+
+        File statisticsFile = getStrategyStatisticsFile();
+        StrategyStatistics statistics;
+        try {
+            statistics = StrategyStatistics.load(statisticsFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read the strategy statistics " + statisticsFile, e);
+        }
+        List<String> ranking = statistics.rank(strategies.keySet());
+        System.out.println("Strategy ranking: " + ranking);
+        List<Strategy> rankedStrategies = new ArrayList<>();
+        for (String strategy : ranking) {
+            rankedStrategies.add(strategies.get(strategy));
+        }
+
+        NPEOutput output = multipleRuns(npefix, npeTests, new ExplorerSelector(rankedStrategies.toArray(new Strategy[0])));
+
+        Map<String, int[]> laps = new HashMap<>();
+        for (Lapse lapse : output) {
+            boolean valid = lapse.getOracle().isValid();
+            Set<String> usedStrategies = new HashSet<>();
+            for (Decision decision : lapse.getDecisions()) {
+                // the strategies of the decisions are copies received from the test JVMs
+                usedStrategies.add(getStrategyName(decision.getStrategy()));
+            }
+            for (String usedStrategy : usedStrategies) {
+                StrategyStatistics.addLap(laps, usedStrategy, valid);
+            }
+        }
+        try {
+            statistics.update(laps);
+        } catch (IOException e) {
+            getLog().error("Unable to save the strategy statistics " + statisticsFile, e);
+        }
+        return output;
+    }
+
+    /**
+     * @return the name of the strategy in the statistics, the class name followed by
+     * the return type for the Strat4 variants (Strat4.NULL, Strat4.VAR...)
+     */
+    private static String getStrategyName(Strategy strategy) {
+        String name = strategy.getClass().getSimpleName();
+        // the return type is not exposed by NPEFix
+        for (Field field : strategy.getClass().getDeclaredFields()) {
+            if (field.getType() == ReturnType.class) {
+                try {
+                    field.setAccessible(true);
+                    return name + "." + field.get(strategy);
+                } catch (IllegalAccessException e) {
+                    break;
+                }
+            }
+        }
+        return name;
+    }
+
+    private File getStrategyStatisticsFile() {
+        if (strategyStatistics != null) {
+            return strategyStatistics;
+        }
+        return new File(localRepository.getBasedir() + "/.cache/repair-maven-plugin/npefix/" + project.getGroupId() + "/" + project.getArtifactId() + ".properties");
+    }
+
+    /**
+     * Runs the laps one after another against a single decision server. The test JVMs
+     * look the selector up by the name and port of the NPEFix configuration, they cannot
+     * be given their own selector session, and the selectors keep their exploration state
+     * internally, so the server cannot serve concurrent laps of the same NPE. The
+     * independent NPEs are repaired concurrently by the partitions of the batch mode.
+     */
     private NPEOutput multipleRuns(Launcher  npefix, List<String> npeTests, Selector selector) {
         DecisionServer decisionServer = new DecisionServer(selector);
         decisionServer.startServer();
@@ -243,9 +703,15 @@ public class NPEFixMojo extends AbstractRepairMojo {
                 }
                 countError = 0;
                 if(output.size() + result.size() > nbIteration) {
-                    output.addAll(result.subList(0, (nbIteration - output.size())));
-                } else {
-                    output.addAll(result);
+                    result = result.subList(0, (nbIteration - output.size()));
+                }
+                output.addAll(result);
+                Lapse validLapse = stopFirst ? getFirstValidLapse(result) : null;
+                if (validLapse != null) {
+                    writeFirstPatch(validLapse, npeTests);
+                    System.out.println("Valid lapse found after " + output.size() + " laps, "
+                            + getRemainingSearchSpace(selector, output) + " decisions not explored");
+                    break;
                 }
             } catch (OutOfMemoryError e) {
                 e.printStackTrace();
@@ -266,6 +732,61 @@ public class NPEFixMojo extends AbstractRepairMojo {
         return output;
     }
 
+    private static Lapse getFirstValidLapse(List<Lapse> laps) {
+        for (Lapse lapse : laps) {
+            if (lapse.getOracle().isValid()) {
+                return lapse;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the decisions of the lapse without waiting for the Spoon model used to print the patch.
+     */
+    private void writeFirstPatch(Lapse lapse, List<String> npeTests) {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("tests", new JSONArray(npeTests));
+        JSONArray decisions = new JSONArray();
+        for (Decision decision : lapse.getDecisions()) {
+            decisions.put(decision.toJSON());
+        }
+        jsonObject.put("decisions", decisions);
+        if (!resultDirectory.exists()) {
+            resultDirectory.mkdirs();
+        }
+        File file = new File(resultDirectory.getAbsolutePath() + "/first_patch_" + new Date().getTime() + ".json");
+        try (FileWriter writer = new FileWriter(file)) {
+            jsonObject.write(writer);
+        } catch (IOException e) {
+            getLog().error("Unable to write the first patch " + file, e);
+        }
+        System.out.println("First patch: " + file);
+    }
+
+    /**
+     * @return the number of decisions of the search space that were not used by a lapse
+     */
+    private static int getRemainingSearchSpace(Selector selector, NPEOutput output) {
+        Set<String> explored = new HashSet<>();
+        for (Lapse lapse : output) {
+            for (Decision decision : lapse.getDecisions()) {
+                explored.add(decision.toJSON().toString());
+            }
+        }
+        int remaining = 0;
+        try {
+            for (Decision decision : selector.getSearchSpace()) {
+                if (!explored.contains(decision.toJSON().toString())) {
+                    remaining++;
+                }
+            }
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+        return remaining;
+    }
+
     private String classpath(List<URL> dependencies) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < dependencies.size(); i++) {
@@ -280,70 +801,87 @@ public class NPEFixMojo extends AbstractRepairMojo {
         return sb.toString();
     }
 
-    private File getSurefireReportsDirectory( MavenProject subProject ) {
-        String buildDir = subProject.getBuild().getDirectory();
-        return new File( buildDir + "/surefire-reports" );
+    /**
+     * @return the source files of the frames of the failing stack traces of the repaired
+     * tests and their direct dependencies
+     */
+    private Set<File> getStackTraceSourceFiles() {
+        Set<File> stackFiles = new LinkedHashSet<>();
+        List<String> testFilter = getTestFilter();
+        for (FailingTest failingTest : getFailureIndex().getFailingTests()) {
+            StackTrace stackTrace = failingTest.getRootCause();
+            if (stackTrace == null || !isRepairable(stackTrace) || (testFilter != null && !testFilter.contains(failingTest.getId()))) {
+                continue;
+            }
+            for (StackTraceElement stackTraceElement : stackTrace.getElements()) {
+                File file = getSourceIndex().getStackFrameLocation(stackTraceElement.getMethod(), false);
+                if (file != null) {
+                    stackFiles.add(file);
+                }
+            }
+        }
+        Set<File> output = new LinkedHashSet<>(stackFiles);
+        for (File stackFile : stackFiles) {
+            try {
+                output.addAll(getSourceIndex().getDirectDependencies(stackFile));
+            } catch (IOException e) {
+                getLog().warn("Unable to read " + stackFile, e);
+            }
+        }
+        getLog().info("Lazy model: " + output.size() + "/" + getSourceIndex().size() + " source files");
+        return output;
+    }
+
+    /**
+     * @return the identifiers of the tests to repair, null for all the failing tests
+     */
+    private List<String> getTestFilter() {
+        return npeTestFilter == null ? null : Arrays.asList(npeTestFilter.split(","));
+    }
+
+    private boolean isRepairable(StackTrace stackTrace) {
+        return stackTrace.getExceptionType().contains("NullPointerException") || repairStrategy.toLowerCase().equals("TryCatch".toLowerCase());
     }
 
     private List<Pair<String, Set<File>>> getNPETest() {
         List<Pair<String, Set<File>>> output = new ArrayList<>();
 
-        for (MavenProject mavenProject : reactorProjects) {
-            File surefireReportsDirectory = getSurefireReportsDirectory(mavenProject);
-            SurefireReportParser parser = new SurefireReportParser(Collections.singletonList(surefireReportsDirectory), Locale.ENGLISH, new NullConsoleLogger());
-            try {
-                List<ReportTestSuite> testSuites = parser.parseXMLReportFiles();
-                for (int i = 0; i < testSuites.size(); i++) {
-                    ReportTestSuite reportTestSuite = testSuites.get(i);
-                    List<ReportTestCase> testCases = reportTestSuite.getTestCases();
-                    for (int j = 0; j < testCases.size(); j++) {
-                        ReportTestCase reportTestCase = testCases.get(j);
-                        if (reportTestCase.hasFailure() && reportTestCase.getFailureDetail() != null) {
-                            try {
-                                StackTrace stackTrace = StackTraceParser.parse(reportTestCase.getFailureDetail());
-                                StackTrace causedBy = stackTrace.getCausedBy();
-                                while (causedBy != null) {
-                                    stackTrace = causedBy;
-                                    causedBy = stackTrace.getCausedBy();
-                                }
-                                if (stackTrace.getExceptionType().contains("NullPointerException") || repairStrategy.toLowerCase().equals("TryCatch".toLowerCase())) {
-                                    Set<File> files = new HashSet<>();
-                                    for (StackTraceElement stackTraceElement : stackTrace.getElements()) {
-                                        String path = stackTraceElement.getMethod().substring(0, stackTraceElement.getMethod().lastIndexOf(".")).replace(".", "/") + ".java";
-                                        if (path.contains("$")) {
-                                            path = path.substring(0, path.indexOf("$")) + ".java";
-                                        }
-                                        if ("package".equals(scope)) {
-                                            path = path.substring(0, path.lastIndexOf("/"));
-                                        }
-                                        for (MavenProject project : reactorProjects) {
-                                            File file = new File(project.getBuild().getSourceDirectory() + "/" + path);
-                                            if (file.exists()) {
-                                                files.add(file);
-                                                break;
-                                            }
-                                        }
-                                        if (!"stack".equals(scope)) {
-                                            break;
-                                        }
-                                    }
-                                    output.add(new Pair<>(reportTestCase.getFullClassName() + "#" + reportTestCase.getName(), files));
-                                }
-                            } catch (StackTraceParser.ParseException e) {
-                                e.printStackTrace();
-                            }
-                        }
+        List<String> testFilter = getTestFilter();
+        for (FailingTest failingTest : getFailureIndex().getFailingTests()) {
+            StackTrace stackTrace = failingTest.getRootCause();
+            if (stackTrace == null || (testFilter != null && !testFilter.contains(failingTest.getId()))) {
+                continue;
+            }
+            if (isRepairable(stackTrace)) {
+                Set<File> files = new HashSet<>();
+                for (StackTraceElement stackTraceElement : stackTrace.getElements()) {
+                    File file = getSourceIndex().getStackFrameLocation(stackTraceElement.getMethod(), "package".equals(scope));
+                    if (file != null) {
+                        files.add(file);
+                    }
+                    if (!"stack".equals(scope)) {
+                        break;
                     }
                 }
-            } catch (MavenReportException e) {
-                e.printStackTrace();
+                output.add(new Pair<>(failingTest.getId(), files));
             }
         }
 
         return output;
     }
 
+    /**
+     * @return the output of NPEFix, null in batch mode where the partitions run in child processes,
+     * see {@link #getRepairResult()}
+     */
     public NPEOutput getResult() {
         return result;
     }
+
+    /**
+     * @return the result of the execution, the merged result of the partitions in batch mode
+     */
+    public RepairResult getRepairResult() {
+        return repairResult;
+    }
 }
@@ -7,6 +7,7 @@ import fr.inria.lille.repair.common.patch.Patch;
 import fr.inria.lille.repair.common.synth.RepairType;
 import fr.inria.lille.repair.nopol.NoPol;
 import fr.inria.lille.repair.nopol.NopolResult;
+import fr.inria.lille.repair.nopol.NopolStatus;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,9 +23,17 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @Mojo( name = "nopol", aggregator = true,
         defaultPhase = LifecyclePhase.TEST,
@@ -51,10 +60,36 @@ public class NopolMojo extends AbstractRepairMojo {
     @Parameter( defaultValue = "z3", property = "solver", required = true )
     private String solver;
 
+    /**
+     * Tries the conditional and precondition repairs one after the other instead of the
+     * single type. maxTime is split evenly between the types, and the time a type does not
+     * use is passed on to the next types. Each type gets at least one minute, so the
+     * execution exceeds maxTime when it is shorter than one minute per type.
+     */
+    @Parameter( defaultValue = "false", property = "scheduleTypes" )
+    private boolean scheduleTypes;
+
+    /**
+     * Reuses the result of a previous execution with the same sources, classpath,
+     * failing tests and configuration instead of running Nopol again. Only the
+     * executions that found a patch are reused.
+     */
+    @Parameter( defaultValue = "false", property = "nopolCache" )
+    private boolean useCache;
+
 	private NopolResult result;
 
+	private List<NopolResult> results = new ArrayList<>();
+
+	private RepairResult repairResult;
+
 	@Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (isForkRequested()) {
+            executeForked();
+            return;
+        }
+        final long start = System.currentTimeMillis();
         final List<String> failingTestCases = getFailingTests();
         final List<URL> dependencies = getClasspath();
         final List<File> sourceFolders = getSourceFolders();
@@ -66,24 +101,158 @@ public class NopolMojo extends AbstractRepairMojo {
 
 		String strClasspath = getStringClasspathFromList(nopolClasspath, systemClasspath);
 
+        ResultCache cache = useCache ? new ResultCache(new File(localRepository.getBasedir() + "/.cache/repair-maven-plugin/nopol")) : null;
+        String fingerprint = null;
+        if (cache != null) {
+            try {
+                fingerprint = ResultCache.fingerprint(sourceFolders, dependencies, failingTestCases, getConfiguration());
+                RepairResult cachedResult = cache.get(fingerprint);
+                if (cachedResult != null) {
+                    getLog().info("Reuse the result of the previous execution " + fingerprint);
+                    for (RepairResult.Candidate candidate : cachedResult.getCandidates()) {
+                        System.out.println("Obtained patch: " + candidate.getDiff());
+                    }
+                    this.repairResult = cachedResult;
+                    saveResult(cachedResult, outputDirectory);
+                    return;
+                }
+            } catch (IOException e) {
+                getLog().warn("Unable to read the result cache, Nopol is executed.", e);
+                cache = null;
+            }
+        }
+
         try {
             setGzoltarDebug(true);
             System.setProperty("java.class.path", strClasspath);
-            NopolContext nopolContext = createNopolContext(failingTestCases, dependencies, sourceFolders);
-
+            if (batch) {
+                List<Callable<List<NopolResult>>> jobs = new ArrayList<>();
+                List<List<String>> groups = getFailingTestClassGroups();
+                for (int i = 0; i < groups.size(); i++) {
+                    final List<String> testClasses = groups.get(i);
+                    final File jobOutput = new File(outputDirectory, "cluster-" + i);
+                    jobs.add(new Callable<List<NopolResult>>() {
+                        @Override
+                        public List<NopolResult> call() throws Exception {
+                            return repair(testClasses, dependencies, sourceFolders, jobOutput);
+                        }
+                    });
+                }
+                for (List<NopolResult> clusterResults : runJobs(jobs)) {
+                    if (clusterResults != null) {
+                        results.addAll(clusterResults);
+                    }
+                }
+            } else {
+                results.addAll(repair(failingTestCases, dependencies, sourceFolders, outputDirectory));
+            }
+            this.result = selectResult(results);
+        } finally {
+            System.setProperty("java.class.path", systemClasspath);
+        }
+        this.repairResult = toRepairResult(failingTestCases, start);
+        saveResult(repairResult, outputDirectory);
+        // an execution without patch may have been stopped by maxTime, it is executed again the next time
+        if (cache != null && repairResult.getNbValidCandidates() > 0) {
             try {
-                File currentDir = new File(".").getCanonicalFile();
-                nopolContext.setRootProject(currentDir.toPath().toAbsolutePath());
+                cache.put(fingerprint, repairResult);
             } catch (IOException e) {
-                getLog().error("Error while setting the root project path, the created patches might have absolute paths.");
+                getLog().warn("Unable to save the result in the cache", e);
             }
+        }
+    }
 
-            final NoPol nopol = new NoPol(nopolContext);
-            this.result = nopol.build();
-            printResults(result);
-        } finally {
-            System.setProperty("java.class.path", systemClasspath);
+    /**
+     * @return the parameters that change the result of Nopol
+     */
+    private Map<String, String> getConfiguration() {
+        Map<String, String> configuration = new LinkedHashMap<>();
+        configuration.put("nopol", HARDCODED_NOPOL_VERSION);
+        configuration.put("type", type);
+        configuration.put("maxTime", Integer.toString(maxTime));
+        configuration.put("localizer", localizer);
+        configuration.put("synthesis", synthesis);
+        configuration.put("solver", solver);
+        configuration.put("complianceLevel", Integer.toString(getComplianceLevel()));
+        configuration.put("batch", Boolean.toString(batch));
+        configuration.put("scheduleTypes", Boolean.toString(scheduleTypes));
+        return configuration;
+    }
+
+    private RepairResult toRepairResult(List<String> failingTestCases, long start) {
+        RepairResult repairResult = new RepairResult("nopol", start, System.currentTimeMillis());
+        for (String test : failingTestCases) {
+            repairResult.addFailingTest(test);
         }
+        for (NopolResult nopolResult : results) {
+            for (Patch patch : nopolResult.getPatches()) {
+                // Nopol only measures the duration of the whole repair, not of each patch
+                repairResult.addCandidate(new RepairResult.Candidate("patch-" + repairResult.getCandidates().size(), true, patch.asString(), -1));
+            }
+        }
+        return repairResult;
+    }
+
+    private List<NopolResult> repair(List<String> failingTestCases, List<URL> dependencies, List<File> sourceFolders, File outputDirectory) {
+        if (!scheduleTypes) {
+            return Collections.singletonList(repair(createNopolContext(failingTestCases, dependencies, sourceFolders, outputDirectory)));
+        }
+        List<RepairType> types = new ArrayList<>();
+        for (RepairType repairType : RepairType.values()) {
+            // the combined types already try the other types one after the other
+            if (!repairType.name().contains("_THEN_")) {
+                types.add(repairType);
+            }
+        }
+        List<NopolResult> output = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(maxTime);
+        for (int i = 0; i < types.size(); i++) {
+            RepairType repairType = types.get(i);
+            // the remaining time is shared by the remaining types, a type that stops early leaves its time to the next ones
+            long timeSlice = TimeUnit.MILLISECONDS.toMinutes((deadline - System.currentTimeMillis()) / (types.size() - i));
+            if (timeSlice < 1) {
+                // Nopol counts in minutes, each type is given at least one minute even beyond maxTime
+                getLog().warn("Less than a minute left for " + repairType + ", it is given one minute");
+                timeSlice = 1;
+            }
+            NopolContext nopolContext = createNopolContext(failingTestCases, dependencies, sourceFolders, new File(outputDirectory, repairType.name().toLowerCase()));
+            nopolContext.setType(repairType);
+            nopolContext.setMaxTimeInMinutes(timeSlice);
+            nopolContext.setMaxTimeEachTypeOfFixInMinutes(timeSlice);
+            nopolContext.setTimeoutTestExecution((int) Math.min(300, TimeUnit.MINUTES.toSeconds(timeSlice)));
+
+            long start = System.currentTimeMillis();
+            NopolResult nopolResult = repair(nopolContext);
+            output.add(nopolResult);
+            getLog().info(repairType + ": " + nopolResult.getNopolStatus() + " after " + TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start) + "s of " + timeSlice + "min");
+        }
+        return output;
+    }
+
+    private NopolResult repair(NopolContext nopolContext) {
+        try {
+            File currentDir = new File(".").getCanonicalFile();
+            nopolContext.setRootProject(currentDir.toPath().toAbsolutePath());
+        } catch (IOException e) {
+            getLog().error("Error while setting the root project path, the created patches might have absolute paths.");
+        }
+
+        final NoPol nopol = new NoPol(nopolContext);
+        NopolResult nopolResult = nopol.build();
+        printResults(nopolResult);
+        return nopolResult;
+    }
+
+    /**
+     * @return the first result containing a patch, the first result otherwise
+     */
+    private NopolResult selectResult(List<NopolResult> results) {
+        for (NopolResult nopolResult : results) {
+            if (nopolResult.getNopolStatus() == NopolStatus.PATCH) {
+                return nopolResult;
+            }
+        }
+        return results.isEmpty() ? null : results.get(0);
     }
 
     private void printResults(NopolResult result) {
@@ -99,7 +268,7 @@ public class NopolMojo extends AbstractRepairMojo {
     }
 
     private NopolContext createNopolContext(List<String> failingTestCases,
-            List<URL> dependencies, List<File> sourceFolders) {
+            List<URL> dependencies, List<File> sourceFolders, File outputDirectory) {
         NopolContext nopolContext = new NopolContext(sourceFolders.toArray(new File[0]), dependencies.toArray(new URL[0]), failingTestCases.toArray(new String[0]), Collections.<String>emptyList());
         nopolContext.setComplianceLevel(getComplianceLevel());
         nopolContext.setTimeoutTestExecution(300);
@@ -162,25 +331,57 @@ public class NopolMojo extends AbstractRepairMojo {
         }
     }
 
+    /**
+     * Extracts z3 once in the local repository, in a folder named after the hash of the binary,
+     * and reuses it in the next executions.
+     */
     private String loadZ3AndGivePath() {
         boolean isMac = System.getProperty("os.name").toLowerCase().contains("mac");
 
         String resourcePath = (isMac)? "z3/z3_for_mac" : "z3/z3_for_linux";
-        InputStream in = this.getClass().getClassLoader().getResourceAsStream(resourcePath);
-
-        try {
-            Path tempFilePath = Files.createTempFile("nopol", "z3");
+        try (InputStream in = this.getClass().getClassLoader().getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                getLog().error("z3 is not available in the classpath (" + resourcePath + ")");
+                return null;
+            }
             byte[] content = ByteStreams.toByteArray(in);
-            Files.write(tempFilePath, content);
 
-            tempFilePath.toFile().setExecutable(true);
-            return tempFilePath.toString();
-        } catch (IOException e) {
+            Path cacheDirectory = Paths.get(localRepository.getBasedir(), ".cache", "repair-maven-plugin", "z3", sha256(content));
+            Path z3Path = cacheDirectory.resolve(resourcePath.substring(resourcePath.indexOf('/') + 1));
+            if (Files.isRegularFile(z3Path) && Files.size(z3Path) == content.length) {
+                getLog().debug("Reuse " + z3Path);
+            } else {
+                Files.createDirectories(cacheDirectory);
+                Path tempFilePath = Files.createTempFile(cacheDirectory, "z3", ".tmp");
+                Files.write(tempFilePath, content);
+                tempFilePath.toFile().setExecutable(true);
+                try {
+                    Files.move(tempFilePath, z3Path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // another execution extracted it concurrently
+                    Files.deleteIfExists(tempFilePath);
+                    if (!Files.isRegularFile(z3Path)) {
+                        throw e;
+                    }
+                }
+            }
+            z3Path.toFile().setExecutable(true);
+            return z3Path.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
             e.printStackTrace();
         }
         return null;
     }
 
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
     private List<URL> getNopolClasspath() {
         List<URL> classpath = new ArrayList<>();
         Artifact artifactPom = artifactFactory.createArtifact("fr.inria.gforge.spirals","nopol", HARDCODED_NOPOL_VERSION, null, "pom");
@@ -215,7 +416,24 @@ public class NopolMojo extends AbstractRepairMojo {
         return new ArrayList<>(classpath);
     }
 
+	/**
+	 * @return the result of Nopol, null when the result comes from the cache, see {@link #getRepairResult()}
+	 */
 	public NopolResult getResult() {
 		return result;
 	}
+
+	/**
+	 * @return the results of Nopol, empty when the result comes from the cache
+	 */
+	public List<NopolResult> getResults() {
+		return results;
+	}
+
+	/**
+	 * @return the result of the execution, computed or read from the cache
+	 */
+	public RepairResult getRepairResult() {
+		return repairResult;
+	}
 }
@@ -0,0 +1,94 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lists the results recorded in the result store.
+ */
+@Mojo( name = "query", requiresProject = false)
+public class QueryMojo extends AbstractMojo {
+
+    @Parameter(defaultValue="${localRepository}")
+    private ArtifactRepository localRepository;
+
+    /**
+     * Result store, the one of the local repository by default.
+     */
+    @Parameter( property = "resultStore" )
+    private File resultStore;
+
+    /**
+     * groupId:artifactId of the project.
+     */
+    @Parameter( property = "queryProject" )
+    private String queryProject;
+
+    @Parameter( property = "queryTool" )
+    private String queryTool;
+
+    /**
+     * Commit or prefix of the commit.
+     */
+    @Parameter( property = "queryCommit" )
+    private String queryCommit;
+
+    /**
+     * Only the results with a valid patch.
+     */
+    @Parameter( defaultValue = "false", property = "validOnly" )
+    private boolean validOnly;
+
+    /**
+     * JSON file receiving the results with their executions, the results are only listed when not set.
+     */
+    @Parameter( property = "queryOutput" )
+    private File output;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        File file = resultStore == null ? ResultStore.getDefaultFile(localRepository.getBasedir()) : resultStore;
+        if (!file.exists()) {
+            throw new MojoExecutionException("No result store " + file);
+        }
+        try {
+            ResultStore store = ResultStore.open(file);
+            List<ResultStore.Entry> entries = store.find(queryProject, queryTool, queryCommit, validOnly);
+            getLog().info(entries.size() + "/" + store.getEntries().size() + " results");
+            if (output == null) {
+                for (ResultStore.Entry entry : entries) {
+                    getLog().info(entry.getProject() + " " + entry.getCommit() + " " + entry.getTool()
+                            + " candidates: " + entry.getNbCandidates() + " valid: " + entry.getNbValidCandidates()
+                            + (entry.getPatchedRunDuration() == -1 ? "" : " patched run duration: " + entry.getPatchedRunDuration() + "ms")
+                            + " [" + entry.getConfiguration() + "]");
+                }
+                return;
+            }
+            JSONArray jsonResults = new JSONArray();
+            for (ResultStore.Entry entry : entries) {
+                JSONObject jsonResult = RepairResultFormat.toJSON(store.readResult(entry));
+                jsonResult.put("project", entry.getProject());
+                jsonResult.put("commit", entry.getCommit());
+                jsonResult.put("configuration", entry.getConfiguration());
+                jsonResult.put("patchedRunDuration", entry.getPatchedRunDuration());
+                jsonResults.put(jsonResult);
+            }
+            try (FileWriter writer = new FileWriter(output)) {
+                jsonResults.write(writer);
+            }
+            getLog().info("Results written in " + output);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to query " + file, e);
+        }
+    }
+}
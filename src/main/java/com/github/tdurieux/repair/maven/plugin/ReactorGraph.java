@@ -0,0 +1,74 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph between the modules of the reactor.
+ */
+public class ReactorGraph {
+
+    private final List<MavenProject> projects;
+
+    private final Map<MavenProject, List<MavenProject>> dependencies = new HashMap<>();
+
+    public ReactorGraph(List<MavenProject> projects) {
+        this.projects = projects;
+
+        Map<String, MavenProject> projectsByKey = new LinkedHashMap<>();
+        for (MavenProject project : projects) {
+            projectsByKey.put(key(project.getGroupId(), project.getArtifactId()), project);
+        }
+        for (MavenProject project : projects) {
+            List<MavenProject> projectDependencies = new ArrayList<>();
+            for (Dependency dependency : project.getDependencies()) {
+                MavenProject module = projectsByKey.get(key(dependency.getGroupId(), dependency.getArtifactId()));
+                if (module != null && module != project && !projectDependencies.contains(module)) {
+                    projectDependencies.add(module);
+                }
+            }
+            dependencies.put(project, projectDependencies);
+        }
+    }
+
+    public List<MavenProject> getDependencies(MavenProject project) {
+        List<MavenProject> output = dependencies.get(project);
+        return output == null ? new ArrayList<MavenProject>() : new ArrayList<>(output);
+    }
+
+    /**
+     * @return the roots and the modules they transitively depend on, in reactor order
+     */
+    public List<MavenProject> getReachable(Collection<MavenProject> roots) {
+        Set<MavenProject> visited = new HashSet<>();
+        Deque<MavenProject> toVisit = new ArrayDeque<>(roots);
+        while (!toVisit.isEmpty()) {
+            MavenProject project = toVisit.poll();
+            if (visited.add(project)) {
+                toVisit.addAll(getDependencies(project));
+            }
+        }
+        List<MavenProject> output = new ArrayList<>();
+        for (MavenProject project : projects) {
+            if (visited.contains(project)) {
+                output.add(project);
+            }
+        }
+        return output;
+    }
+
+    private static String key(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distributes repair jobs to {@link RepairWorker}s over TCP.
+ *
+ * The protocol is line based: a worker sends "NEXT" and receives
+ * "JOB {json}", "WAIT" when all the remaining jobs are running, or "DONE".
+ * It reports a job with "RESULT {json}". The jobs of a worker that
+ * disconnects are given to the next workers.
+ */
+public class RepairCoordinator {
+
+    static final String NEXT = "NEXT";
+
+    static final String JOB = "JOB";
+
+    static final String WAIT = "WAIT";
+
+    static final String DONE = "DONE";
+
+    static final String RESULT = "RESULT";
+
+    private final Deque<RepairJob> pendingJobs;
+
+    private final Map<String, RepairJob> runningJobs = new HashMap<>();
+
+    private final Map<String, JSONObject> results = new LinkedHashMap<>();
+
+    private final int nbJobs;
+
+    private ServerSocket serverSocket;
+
+    public RepairCoordinator(List<RepairJob> jobs) {
+        this.pendingJobs = new ArrayDeque<>(jobs);
+        this.nbJobs = jobs.size();
+    }
+
+    /**
+     * Listens on the port in a background thread, 0 for any free port.
+     */
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        Thread connectionThread = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                handle(socket);
+                            }
+                        }, "repair-coordinator-" + socket.getRemoteSocketAddress());
+                        connectionThread.setDaemon(true);
+                        connectionThread.start();
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        }, "repair-coordinator");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits until all the jobs are reported and stops listening.
+     *
+     * @return the reports of the jobs by job id
+     */
+    public synchronized Map<String, JSONObject> awaitResults() throws InterruptedException {
+        while (results.size() < nbJobs) {
+            wait();
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return new LinkedHashMap<>(results);
+    }
+
+    public void writeSummary(File file) throws IOException {
+        JSONObject summary = new JSONObject();
+        synchronized (this) {
+            for (Map.Entry<String, JSONObject> result : results.entrySet()) {
+                summary.put(result.getKey(), result.getValue());
+            }
+        }
+        try (FileWriter writer = new FileWriter(file)) {
+            summary.write(writer);
+        }
+    }
+
+    private void handle(Socket socket) {
+        List<RepairJob> jobs = new ArrayList<>();
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(NEXT)) {
+                    RepairJob job = nextJob();
+                    if (job != null) {
+                        jobs.add(job);
+                        writer.println(JOB + " " + job.toJSON());
+                    } else {
+                        writer.println(isDone() ? DONE : WAIT);
+                    }
+                } else if (line.startsWith(RESULT + " ")) {
+                    JSONObject result = new JSONObject(line.substring(RESULT.length() + 1));
+                    RepairJob job = report(result);
+                    jobs.remove(job);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Worker disconnected: " + e.getMessage());
+        } finally {
+            for (RepairJob job : jobs) {
+                requeue(job);
+            }
+        }
+    }
+
+    private synchronized RepairJob nextJob() {
+        RepairJob job = pendingJobs.poll();
+        if (job != null) {
+            runningJobs.put(job.getId(), job);
+            System.out.println("Job " + job + " started, " + pendingJobs.size() + " pending");
+        }
+        return job;
+    }
+
+    private synchronized boolean isDone() {
+        return pendingJobs.isEmpty() && runningJobs.isEmpty();
+    }
+
+    private synchronized RepairJob report(JSONObject result) {
+        String id = result.getString("id");
+        RepairJob job = runningJobs.remove(id);
+        if (job != null) {
+            results.put(id, result);
+            System.out.println("Job " + id + " finished (" + results.size() + "/" + nbJobs + ")");
+            notifyAll();
+        }
+        return job;
+    }
+
+    private synchronized void requeue(RepairJob job) {
+        if (runningJobs.remove(job.getId()) != null) {
+            System.out.println("Job " + job + " requeued");
+            pendingJobs.addFirst(job);
+        }
+    }
+}
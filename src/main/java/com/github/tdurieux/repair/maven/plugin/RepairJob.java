@@ -0,0 +1,124 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution of one repair goal on one project with one configuration,
+ * the unit of work distributed by the {@link RepairCoordinator}.
+ */
+public class RepairJob {
+
+    private final String id;
+
+    private final File pom;
+
+    private final String goal;
+
+    private final Map<String, String> properties;
+
+    public RepairJob(String id, File pom, String goal, Map<String, String> properties) {
+        this.id = id;
+        this.pom = pom;
+        this.goal = goal;
+        this.properties = properties;
+    }
+
+    /**
+     * @param bugs a project or a folder containing one project per bug
+     * @param goals repair goals of the plugin (npefix, nopol, jGenProg...)
+     * @param configurations properties of the configurations, key=value separated by ';', one empty configuration when none
+     * @return a job for each bug, goal and configuration
+     */
+    public static List<RepairJob> enumerate(File bugs, List<String> goals, List<String> configurations) {
+        List<File> projects = new ArrayList<>();
+        if (new File(bugs, "pom.xml").exists()) {
+            projects.add(bugs);
+        } else {
+            File[] children = bugs.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (new File(child, "pom.xml").exists()) {
+                        projects.add(child);
+                    }
+                }
+            }
+        }
+        if (configurations == null || configurations.isEmpty()) {
+            configurations = Collections.singletonList("");
+        }
+        List<RepairJob> jobs = new ArrayList<>();
+        for (File project : projects) {
+            for (String goal : goals) {
+                for (int i = 0; i < configurations.size(); i++) {
+                    String id = project.getName() + "_" + goal + (configurations.size() > 1 ? "_" + i : "");
+                    jobs.add(new RepairJob(id, new File(project, "pom.xml"), goal, parseConfiguration(configurations.get(i))));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    static Map<String, String> parseConfiguration(String configuration) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String property : configuration.split(";")) {
+            int index = property.indexOf('=');
+            if (index > 0) {
+                properties.put(property.substring(0, index).trim(), property.substring(index + 1).trim());
+            }
+        }
+        return properties;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public File getPom() {
+        return pom;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public JSONObject toJSON() {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("id", id);
+        jsonObject.put("pom", pom.getAbsolutePath());
+        jsonObject.put("goal", goal);
+        jsonObject.put("properties", properties);
+        return jsonObject;
+    }
+
+    public static RepairJob fromJSON(JSONObject jsonObject) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        JSONObject jsonProperties = jsonObject.optJSONObject("properties");
+        if (jsonProperties != null) {
+            Iterator<String> keys = jsonProperties.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                properties.put(key, jsonProperties.getString(key));
+            }
+        }
+        return new RepairJob(jsonObject.getString("id"), new File(jsonObject.getString("pom")), jsonObject.getString("goal"), properties);
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a repair tool execution, common to all the tools.
+ */
+public class RepairResult {
+
+    private final String tool;
+
+    private final long start;
+
+    private final long end;
+
+    private final List<String> failingTests = new ArrayList<>();
+
+    private final List<Candidate> candidates = new ArrayList<>();
+
+    public RepairResult(String tool, long start, long end) {
+        this.tool = tool;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getTool() {
+        return tool;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public List<String> getFailingTests() {
+        return failingTests;
+    }
+
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    public RepairResult addFailingTest(String test) {
+        failingTests.add(test);
+        return this;
+    }
+
+    public RepairResult addCandidate(Candidate candidate) {
+        candidates.add(candidate);
+        return this;
+    }
+
+    public int getNbValidCandidates() {
+        int count = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.isValid()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A lapse or a program variant produced by a repair tool.
+     */
+    public static class Candidate {
+
+        private final String id;
+
+        private final boolean valid;
+
+        private final String diff;
+
+        private final long duration;
+
+        private final List<String> tests = new ArrayList<>();
+
+        /**
+         * @param valid true if all the executed tests pass with the candidate
+         * @param duration time spent on the candidate in milliseconds, -1 if unknown
+         */
+        public Candidate(String id, boolean valid, String diff, long duration) {
+            this.id = id;
+            this.valid = valid;
+            this.diff = diff;
+            this.duration = duration;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public String getDiff() {
+            return diff;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the tests executed to validate the candidate
+         */
+        public List<String> getTests() {
+            return tests;
+        }
+
+        public Candidate addTest(String test) {
+            tests.add(test);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary serialization of {@link RepairResult}.
+ *
+ * The stream is gzipped, integers are variable-length encoded and each distinct
+ * string (test names, diffs) is written once, the next occurrences being
+ * references to the first one.
+ */
+public class RepairResultFormat {
+
+    public static final String EXTENSION = ".repair";
+
+    private static final int MAGIC = 0x52455052;
+
+    private static final int VERSION = 1;
+
+    public static void write(RepairResult result, File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            write(result, output);
+        }
+    }
+
+    public static RepairResult read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            return read(input);
+        }
+    }
+
+    static void write(RepairResult result, DataOutputStream output) throws IOException {
+        StringTableWriter strings = new StringTableWriter(output);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        strings.write(result.getTool());
+        output.writeLong(result.getStart());
+        output.writeLong(result.getEnd());
+        writeStrings(strings, output, result.getFailingTests());
+        writeVarInt(output, result.getCandidates().size());
+        for (RepairResult.Candidate candidate : result.getCandidates()) {
+            strings.write(candidate.getId());
+            output.writeBoolean(candidate.isValid());
+            strings.write(candidate.getDiff());
+            output.writeLong(candidate.getDuration());
+            writeStrings(strings, output, candidate.getTests());
+        }
+    }
+
+    static RepairResult read(DataInputStream input) throws IOException {
+        StringTableReader strings = new StringTableReader(input);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a repair result");
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported repair result version " + version);
+        }
+        RepairResult result = new RepairResult(strings.read(), input.readLong(), input.readLong());
+        for (String test : readStrings(strings, input)) {
+            result.addFailingTest(test);
+        }
+        int nbCandidates = readVarInt(input);
+        for (int i = 0; i < nbCandidates; i++) {
+            RepairResult.Candidate candidate = new RepairResult.Candidate(strings.read(), input.readBoolean(), strings.read(), input.readLong());
+            for (String test : readStrings(strings, input)) {
+                candidate.addTest(test);
+            }
+            result.addCandidate(candidate);
+        }
+        return result;
+    }
+
+    /**
+     * @return the result in the layout of the NPEFix patches files, an execution
+     * per candidate with its diff and its success. Only the fields common to all the
+     * tools are written, the JSON is not the one of the tool.
+     */
+    public static JSONObject toJSON(RepairResult result) {
+        JSONObject json = new JSONObject();
+        json.put("tool", result.getTool());
+        json.put("start", result.getStart());
+        json.put("end", result.getEnd());
+        json.put("tests", toJSON(result.getFailingTests()));
+        JSONArray executions = new JSONArray();
+        for (RepairResult.Candidate candidate : result.getCandidates()) {
+            JSONObject execution = new JSONObject();
+            execution.put("id", candidate.getId());
+            if (candidate.getDiff() != null) {
+                execution.put("diff", candidate.getDiff());
+            }
+            execution.put("result", new JSONObject().put("success", candidate.isValid()));
+            // the duration and the tests are only known for some tools
+            if (candidate.getDuration() != -1) {
+                execution.put("duration", candidate.getDuration());
+            }
+            if (!candidate.getTests().isEmpty()) {
+                execution.put("tests", toJSON(candidate.getTests()));
+            }
+            executions.put(execution);
+        }
+        json.put("executions", executions);
+        return json;
+    }
+
+    private static JSONArray toJSON(List<String> values) {
+        JSONArray array = new JSONArray();
+        for (String value : values) {
+            array.put(value);
+        }
+        return array;
+    }
+
+    private static void writeStrings(StringTableWriter strings, DataOutputStream output, List<String> values) throws IOException {
+        writeVarInt(output, values.size());
+        for (String value : values) {
+            strings.write(value);
+        }
+    }
+
+    private static List<String> readStrings(StringTableReader strings, DataInputStream input) throws IOException {
+        int size = readVarInt(input);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(strings.read());
+        }
+        return values;
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Strings are encoded as 0 for null, 1 followed by the UTF-8 bytes for a new string
+     * and index + 2 for a string already written.
+     */
+    private static class StringTableWriter {
+
+        private final DataOutputStream output;
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private StringTableWriter(DataOutputStream output) {
+            this.output = output;
+        }
+
+        private void write(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(output, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index != null) {
+                writeVarInt(output, index + 2);
+                return;
+            }
+            indexes.put(value, indexes.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(output, 1);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static class StringTableReader {
+
+        private final DataInputStream input;
+
+        private final List<String> values = new ArrayList<>();
+
+        private StringTableReader(DataInputStream input) {
+            this.input = input;
+        }
+
+        private String read() throws IOException {
+            int code = readVarInt(input);
+            if (code == 0) {
+                return null;
+            }
+            if (code > 1) {
+                return values.get(code - 2);
+            }
+            byte[] bytes = new byte[readVarInt(input)];
+            input.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            values.add(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Pulls repair jobs from a {@link RepairCoordinator} and executes them in
+ * child Maven processes. The output of each job is written in its own
+ * folder of the shared result directory.
+ */
+public class RepairWorker implements Runnable {
+
+    private final String host;
+
+    private final int port;
+
+    private final String goalPrefix;
+
+    private final File resultDirectory;
+
+    private final int maxHeap;
+
+    private boolean offline = false;
+
+    private long waitTime = 5000;
+
+    /**
+     * @param goalPrefix groupId:artifactId:version of the plugin
+     * @param resultDirectory shared directory of the results
+     * @param maxHeap maximum heap of the child processes in MB
+     */
+    public RepairWorker(String host, int port, String goalPrefix, File resultDirectory, int maxHeap) {
+        this.host = host;
+        this.port = port;
+        this.goalPrefix = goalPrefix;
+        this.resultDirectory = resultDirectory;
+        this.maxHeap = maxHeap;
+    }
+
+    public RepairWorker setOffline(boolean offline) {
+        this.offline = offline;
+        return this;
+    }
+
+    /**
+     * @param waitTime delay in milliseconds before asking again when all the jobs are running
+     */
+    public RepairWorker setWaitTime(long waitTime) {
+        this.waitTime = waitTime;
+        return this;
+    }
+
+    @Override
+    public void run() {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            while (true) {
+                writer.println(RepairCoordinator.NEXT);
+                String line = reader.readLine();
+                if (line == null || line.equals(RepairCoordinator.DONE)) {
+                    return;
+                }
+                if (line.equals(RepairCoordinator.WAIT)) {
+                    Thread.sleep(waitTime);
+                    continue;
+                }
+                RepairJob job = RepairJob.fromJSON(new JSONObject(line.substring(RepairCoordinator.JOB.length() + 1)));
+                writer.println(RepairCoordinator.RESULT + " " + execute(job));
+            }
+        } catch (IOException e) {
+            System.err.println("Connection to the coordinator " + host + ":" + port + " lost: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    JSONObject execute(RepairJob job) throws InterruptedException {
+        File jobDirectory = new File(resultDirectory, job.getId());
+        jobDirectory.mkdirs();
+        ForkedExecution execution = new ForkedExecution(job.getPom(), goalPrefix + ":" + job.getGoal())
+                .setOffline(offline)
+                .setLogFile(new File(jobDirectory, "repair.log"))
+                // the results of a campaign are compared with the query goal, a job can disable it
+                .setProperty("storeResults", "true");
+        for (Map.Entry<String, String> property : job.getProperties().entrySet()) {
+            execution.setProperty(property.getKey(), property.getValue());
+        }
+        // the output parameters of the repair goals
+        execution.setProperty("outputDir", jobDirectory.getAbsolutePath())
+                .setProperty("resultDir", jobDirectory.getAbsolutePath())
+                .setProperty("out", jobDirectory.getAbsolutePath())
+                .setProperty("binaryResults", "true")
+                .setProperty("fork", "false");
+
+        File projectDirectory = job.getPom().getAbsoluteFile().getParentFile();
+        JvmSizing sizing = JvmSizing.compute(Collections.singletonList(new File(projectDirectory, "src")), Collections.<URL>emptyList(), maxHeap);
+        JSONObject result = new JSONObject();
+        result.put("id", job.getId());
+        result.put("directory", jobDirectory.getAbsolutePath());
+        long start = System.currentTimeMillis();
+        try {
+            ForkedExecution.Outcome outcome = execution.run(sizing, 2);
+            result.put("exitCode", outcome.getExitCode());
+            result.put("outOfMemory", outcome.isOutOfMemory());
+        } catch (IOException e) {
+            result.put("exitCode", -1);
+            result.put("error", e.toString());
+        }
+        result.put("duration", System.currentTimeMillis() - start);
+        return result;
+    }
+}
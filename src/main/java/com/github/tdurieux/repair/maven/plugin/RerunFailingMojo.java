@@ -0,0 +1,88 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes again the failing tests of the surefire reports and updates the
+ * reports, without running the whole test suite. The tests are executed in the
+ * Maven process, in a class loader containing the test classpath of their module.
+ */
+@Mojo( name = "rerun-failing", aggregator = true,
+        defaultPhase = LifecyclePhase.TEST,
+        requiresDependencyResolution = ResolutionScope.TEST)
+public class RerunFailingMojo extends AbstractRepairMojo {
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (isForkRequested()) {
+            executeForked();
+            return;
+        }
+        Map<MavenProject, Map<String, List<String>>> testsByModule = new LinkedHashMap<>();
+        for (FailingTest failingTest : getFailureIndex().getFailingTests()) {
+            Map<String, List<String>> testsByClass = testsByModule.get(failingTest.getModule());
+            if (testsByClass == null) {
+                testsByClass = new LinkedHashMap<>();
+                testsByModule.put(failingTest.getModule(), testsByClass);
+            }
+            List<String> methods = testsByClass.get(failingTest.getClassName());
+            if (methods == null) {
+                methods = new ArrayList<>();
+                testsByClass.put(failingTest.getClassName(), methods);
+            }
+            methods.add(failingTest.getMethodName());
+        }
+
+        int nbTests = 0;
+        int nbFailing = 0;
+        for (Map.Entry<MavenProject, Map<String, List<String>>> moduleTests : testsByModule.entrySet()) {
+            MavenProject module = moduleTests.getKey();
+            try (URLClassLoader classLoader = new URLClassLoader(getTestClasspath(module), ClassLoader.getSystemClassLoader().getParent())) {
+                for (Map.Entry<String, List<String>> classTests : moduleTests.getValue().entrySet()) {
+                    List<String> tests = new ArrayList<>();
+                    for (String method : classTests.getValue()) {
+                        tests.add(classTests.getKey() + "#" + method);
+                    }
+                    TestRunner.Result result = TestRunner.run(classLoader, tests);
+                    if (result.getError() != null) {
+                        getLog().warn("Unable to execute " + classTests.getKey() + ", its report is not updated: " + result.getError());
+                        continue;
+                    }
+                    File report = SurefireReportWriter.write(FailureIndex.getSurefireReportsDirectory(module), classTests.getKey(), classTests.getValue(), result.getFailures());
+                    getLog().debug(classTests.getKey() + ": " + result + ", " + report);
+                    nbTests += classTests.getValue().size();
+                    nbFailing += Math.min(result.getFailures().size(), classTests.getValue().size());
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to update the surefire reports of " + module.getArtifactId(), e);
+            }
+        }
+        getLog().info(nbTests + " failing tests executed, " + nbFailing + " still failing");
+    }
+
+    private URL[] getTestClasspath(MavenProject module) throws MojoExecutionException {
+        List<URL> urls = new ArrayList<>();
+        try {
+            for (String element : module.getTestClasspathElements()) {
+                urls.add(new File(element).toURI().toURL());
+            }
+        } catch (DependencyResolutionRequiredException | IOException e) {
+            throw new MojoExecutionException("Unable to resolve the test classpath of " + module.getArtifactId(), e);
+        }
+        return urls.toArray(new URL[0]);
+    }
+}
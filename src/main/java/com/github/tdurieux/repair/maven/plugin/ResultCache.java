@@ -0,0 +1,125 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Results of previous repairs, identified by a fingerprint of their inputs:
+ * the sources, the classpath, the failing tests and the configuration of the tool.
+ */
+public class ResultCache {
+
+    private final File directory;
+
+    public ResultCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The content of the source files and of the class folders is hashed,
+     * the archives are identified by their path, size and modification date.
+     */
+    public static String fingerprint(Collection<File> sourceFolders, Collection<URL> classpath, Collection<String> tests, Map<String, String> configuration) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        for (File sourceFolder : sourceFolders) {
+            update(digest, "source " + sourceFolder.getAbsolutePath());
+            hashFiles(digest, sourceFolder, ".java");
+        }
+        for (URL url : classpath) {
+            File file = new File(url.getPath());
+            update(digest, "classpath " + file.getAbsolutePath());
+            if (file.isDirectory()) {
+                hashFiles(digest, file, ".class");
+            } else {
+                update(digest, file.length() + " " + file.lastModified());
+            }
+        }
+        List<String> sortedTests = new ArrayList<>(tests);
+        Collections.sort(sortedTests);
+        for (String test : sortedTests) {
+            update(digest, "test " + test);
+        }
+        for (Map.Entry<String, String> entry : new TreeMap<>(configuration).entrySet()) {
+            update(digest, "configuration " + entry.getKey() + "=" + entry.getValue());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the cached result, null if there is none
+     */
+    public RepairResult get(String fingerprint) throws IOException {
+        File file = getFile(fingerprint);
+        if (!file.isFile()) {
+            return null;
+        }
+        return RepairResultFormat.read(file);
+    }
+
+    public void put(String fingerprint, RepairResult result) throws IOException {
+        Files.createDirectories(directory.toPath());
+        Path tempFile = Files.createTempFile(directory.toPath(), fingerprint, ".tmp");
+        try {
+            RepairResultFormat.write(result, tempFile.toFile());
+            Files.move(tempFile, getFile(fingerprint).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private File getFile(String fingerprint) {
+        return new File(directory, fingerprint + RepairResultFormat.EXTENSION);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void hashFiles(final MessageDigest digest, final File root, final String extension) throws IOException {
+        if (!root.isDirectory()) {
+            return;
+        }
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                if (path.getFileName().toString().endsWith(extension)) {
+                    files.add(path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        // the order of the directory listing depends on the file system
+        Collections.sort(files);
+        for (Path file : files) {
+            update(digest, root.toPath().relativize(file).toString());
+            digest.update(Files.readAllBytes(file));
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Single file database of the repair results of all the executions.
+ *
+ * The records are appended to the file: the indexed fields (project, commit,
+ * tool, configuration, date, duration of a patched run, number of candidates) followed by
+ * the result in the {@link RepairResultFormat}. The indexed fields are read
+ * when the store is opened, the results only when they are requested.
+ * The file is locked while it is written, several executions can share it.
+ */
+public class ResultStore {
+
+    private static final int MAGIC = 0x52535452;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private final File file;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private ResultStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the store shared by the executions using the local repository
+     */
+    public static File getDefaultFile(String localRepository) {
+        return new File(localRepository + "/.cache/repair-maven-plugin/results.store");
+    }
+
+    public static ResultStore open(File file) throws IOException {
+        ResultStore store = new ResultStore(file);
+        if (file.exists()) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileLock lock = randomAccessFile.getChannel().lock(0, Long.MAX_VALUE, true)) {
+                store.load(randomAccessFile.getChannel());
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Appends a result, and the results appended by other executions since the store was opened.
+     *
+     * @param configuration parameters of the execution
+     * @return the entry of the result
+     */
+    public Entry append(RepairResult result, String project, String commit, String configuration) throws IOException {
+        ByteArrayOutputStream resultBytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(resultBytes))) {
+            RepairResultFormat.write(result, output);
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(record);
+        output.writeInt(0);
+        output.writeUTF(project);
+        output.writeUTF(commit == null ? "" : commit);
+        output.writeUTF(result.getTool());
+        output.writeUTF(truncate(configuration));
+        output.writeLong(result.getEnd());
+        output.writeLong(getPatchedRunDuration(result));
+        output.writeInt(result.getCandidates().size());
+        output.writeInt(result.getNbValidCandidates());
+        output.writeInt(resultBytes.size());
+        resultBytes.writeTo(output);
+        output.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        buffer.putInt(0, buffer.capacity() - 4);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileLock lock = randomAccessFile.getChannel().lock()) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long end = load(channel);
+            if (end == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                channel.write(header, 0);
+                end = HEADER_SIZE;
+            }
+            // an interrupted append leaves an incomplete record that is overwritten
+            channel.truncate(end);
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            Entry entry = readEntry(channel, end);
+            entries.add(entry);
+            return entry;
+        }
+    }
+
+    /**
+     * @return the duration of the whole run when a valid patch was found, -1 when none was
+     * found. The tools do not all report when the first valid patch was found.
+     */
+    static long getPatchedRunDuration(RepairResult result) {
+        if (result.getNbValidCandidates() == 0) {
+            return -1;
+        }
+        return result.getEnd() - result.getStart();
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @param project groupId:artifactId, any when null
+     * @param tool any when null
+     * @param commit any when null
+     * @param validOnly only the results with a valid patch
+     */
+    public List<Entry> find(String project, String tool, String commit, boolean validOnly) {
+        List<Entry> output = new ArrayList<>();
+        for (Entry entry : entries) {
+            if ((project == null || project.equals(entry.project))
+                    && (tool == null || tool.equals(entry.tool))
+                    && (commit == null || entry.commit.startsWith(commit))
+                    && (!validOnly || entry.nbValidCandidates > 0)) {
+                output.add(entry);
+            }
+        }
+        return output;
+    }
+
+    public RepairResult readResult(Entry entry) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[entry.resultLength];
+            randomAccessFile.seek(entry.resultOffset);
+            randomAccessFile.readFully(bytes);
+            try (DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)))) {
+                return RepairResultFormat.read(input);
+            }
+        }
+    }
+
+    /**
+     * Reads the entries from the position of the last known entry.
+     *
+     * @return the end of the last complete record
+     */
+    private long load(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            entries.clear();
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException(file + " is not a result store");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported result store version " + version);
+        }
+        if (!entries.isEmpty() && entries.get(entries.size() - 1).getEnd() > size) {
+            // the file was replaced
+            entries.clear();
+        }
+        long position = entries.isEmpty() ? HEADER_SIZE : entries.get(entries.size() - 1).getEnd();
+        while (position + 4 <= size) {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            channel.read(lengthBuffer, position);
+            lengthBuffer.flip();
+            long end = position + 4 + lengthBuffer.getInt();
+            if (end > size) {
+                break;
+            }
+            entries.add(readEntry(channel, position));
+            position = end;
+        }
+        return position;
+    }
+
+    private static String truncate(String value) {
+        // writeUTF is limited to 65535 bytes
+        return value.length() > 16000 ? value.substring(0, 16000) : value;
+    }
+
+    private static Entry readEntry(FileChannel channel, long position) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        channel.read(lengthBuffer, position);
+        lengthBuffer.flip();
+        int length = lengthBuffer.getInt();
+        // the indexed fields are before the result, only the beginning of the record is read
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(length, 64 * 1024));
+        channel.read(buffer, position + 4);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+        try {
+            Entry entry = new Entry(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(),
+                    input.readLong(), input.readLong(), input.readInt(), input.readInt());
+            entry.resultLength = input.readInt();
+            entry.resultOffset = position + 4 + length - entry.resultLength;
+            return entry;
+        } catch (EOFException e) {
+            throw new IOException("Corrupted record at " + position, e);
+        }
+    }
+
+    public static class Entry {
+
+        private final String project;
+
+        private final String commit;
+
+        private final String tool;
+
+        private final String configuration;
+
+        private final long date;
+
+        private final long patchedRunDuration;
+
+        private final int nbCandidates;
+
+        private final int nbValidCandidates;
+
+        private long resultOffset;
+
+        private int resultLength;
+
+        Entry(String project, String commit, String tool, String configuration, long date, long patchedRunDuration, int nbCandidates, int nbValidCandidates) {
+            this.project = project;
+            this.commit = commit;
+            this.tool = tool;
+            this.configuration = configuration;
+            this.date = date;
+            this.patchedRunDuration = patchedRunDuration;
+            this.nbCandidates = nbCandidates;
+            this.nbValidCandidates = nbValidCandidates;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        public String getCommit() {
+            return commit;
+        }
+
+        public String getTool() {
+            return tool;
+        }
+
+        public String getConfiguration() {
+            return configuration;
+        }
+
+        public long getDate() {
+            return date;
+        }
+
+        /**
+         * @return the duration of the run in milliseconds if a valid patch was found, -1 otherwise
+         */
+        public long getPatchedRunDuration() {
+            return patchedRunDuration;
+        }
+
+        public int getNbCandidates() {
+            return nbCandidates;
+        }
+
+        public int getNbValidCandidates() {
+            return nbValidCandidates;
+        }
+
+        long getEnd() {
+            return resultOffset + resultLength;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped file containing the NPEFix search space.
+ *
+ * Each decision is stored as its JSON serialization and the number of laps
+ * that used it, total and valid. The file layout is:
+ * <pre>
+ * magic (int) version (int)
+ * records: length (int) json (utf-8 bytes) nbLaps (int) nbValidLaps (int)
+ * index: offset of each record (long)
+ * footer: number of records (int) offset of the index (long)
+ * </pre>
+ */
+public class SearchSpaceStore implements Closeable {
+
+    private static final int MAGIC = 0x4e504653;
+
+    private static final int VERSION = 1;
+
+    private static final int FOOTER_SIZE = 4 + 8;
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer buffer;
+
+    private final int size;
+
+    private final long indexOffset;
+
+    private SearchSpaceStore(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        FileChannel channel = this.file.getChannel();
+        if (channel.size() > Integer.MAX_VALUE) {
+            this.file.close();
+            throw new IOException(file + " is too large to be mapped");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            this.file.close();
+            throw new IOException(file + " is not a search space file");
+        }
+        this.size = buffer.getInt(buffer.limit() - FOOTER_SIZE);
+        this.indexOffset = buffer.getLong(buffer.limit() - 8);
+    }
+
+    public static SearchSpaceStore open(File file) throws IOException {
+        return new SearchSpaceStore(file);
+    }
+
+    public static Builder create(File file) throws IOException {
+        return new Builder(file);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int getRecordOffset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Decision " + index + " of " + size);
+        }
+        return (int) buffer.getLong((int) indexOffset + index * 8);
+    }
+
+    /**
+     * @return the JSON serialization of the decision
+     */
+    public String getDecision(int index) {
+        int offset = getRecordOffset(index);
+        int length = buffer.getInt(offset);
+        ByteBuffer json = buffer.duplicate();
+        json.position(offset + 4);
+        json.limit(offset + 4 + length);
+        return StandardCharsets.UTF_8.decode(json).toString();
+    }
+
+    public int getNbLaps(int index) {
+        int offset = getRecordOffset(index);
+        return buffer.getInt(offset + 4 + buffer.getInt(offset));
+    }
+
+    public int getNbValidLaps(int index) {
+        int offset = getRecordOffset(index);
+        return buffer.getInt(offset + 8 + buffer.getInt(offset));
+    }
+
+    /**
+     * Writes the decisions as a JSON array without loading them all in memory.
+     */
+    public void writeJSONArray(Writer writer) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(getDecision(i));
+        }
+        writer.write(']');
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    public static class Builder implements Closeable {
+
+        private final File file;
+
+        private final DataOutputStream output;
+
+        private final List<Long> offsets = new ArrayList<>();
+
+        private long position;
+
+        private Builder(File file) throws IOException {
+            this.file = file;
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            position = 8;
+        }
+
+        public Builder add(String decisionJSON, int nbLaps, int nbValidLaps) throws IOException {
+            byte[] json = decisionJSON.getBytes(StandardCharsets.UTF_8);
+            offsets.add(position);
+            output.writeInt(json.length);
+            output.write(json);
+            output.writeInt(nbLaps);
+            output.writeInt(nbValidLaps);
+            position += 4 + json.length + 8;
+            return this;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long indexOffset = position;
+            for (Long offset : offsets) {
+                output.writeLong(offset);
+            }
+            output.writeInt(offsets.size());
+            output.writeLong(indexOffset);
+            output.close();
+        }
+    }
+}
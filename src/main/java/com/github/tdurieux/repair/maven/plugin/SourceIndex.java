@@ -0,0 +1,182 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the java files of source folders by fully qualified class name,
+ * built with a single walk of the folders.
+ * When several folders declare the same class, the first folder wins.
+ */
+public class SourceIndex {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|//[^\\n]*", Pattern.DOTALL);
+
+    private static final Pattern PACKAGE = Pattern.compile("\\bpackage\\s+([\\w.]+)\\s*;");
+
+    private static final Pattern IMPORT = Pattern.compile("\\bimport\\s+(static\\s+)?([\\w.]+(?:\\.\\*)?)\\s*;");
+
+    private static final Pattern TYPE_IDENTIFIER = Pattern.compile("\\b[A-Z][\\w$]*\\b");
+
+    private final Map<String, File> classes = new HashMap<>();
+
+    private Map<String, List<String>> classesByPackage;
+
+    public SourceIndex(Collection<File> sourceFolders) {
+        for (File sourceFolder : sourceFolders) {
+            if (sourceFolder.isDirectory()) {
+                index(sourceFolder.toPath());
+            }
+        }
+    }
+
+    private void index(final Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String fileName = file.getFileName().toString();
+                    if (fileName.endsWith(".java")) {
+                        String className = toName(root.relativize(file));
+                        className = className.substring(0, className.length() - ".java".length());
+                        if (!classes.containsKey(className)) {
+                            classes.put(className, file.toFile());
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String toName(Path relativePath) {
+        StringBuilder sb = new StringBuilder();
+        for (Path element : relativePath) {
+            if (element.toString().isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            sb.append(element.toString());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param className fully qualified name, possibly of a nested class (a.b.C$D)
+     * @return the source file declaring the class, null if the class is not in the indexed folders
+     */
+    public File getSourceFile(String className) {
+        int nestedIndex = className.indexOf('$');
+        if (nestedIndex != -1) {
+            className = className.substring(0, nestedIndex);
+        }
+        return classes.get(className);
+    }
+
+    /**
+     * @param method fully qualified method of a stack frame (a.b.C$D.method)
+     * @param packageLevel return the package folder of the source file instead of the file
+     * @return null if the class of the frame is not in the indexed folders
+     */
+    public File getStackFrameLocation(String method, boolean packageLevel) {
+        int methodIndex = method.lastIndexOf('.');
+        if (methodIndex == -1) {
+            return null;
+        }
+        File sourceFile = getSourceFile(method.substring(0, methodIndex));
+        if (sourceFile == null || !packageLevel) {
+            return sourceFile;
+        }
+        return sourceFile.getParentFile();
+    }
+
+    /**
+     * Finds the indexed classes referenced by a source file from its text: the
+     * imported classes, the classes of the imported packages and of its own
+     * package whose simple name appears in the file.
+     *
+     * @return the source files of the referenced classes, without the file itself
+     */
+    public Set<File> getDirectDependencies(File sourceFile) throws IOException {
+        String content = new String(Files.readAllBytes(sourceFile.toPath()), StandardCharsets.UTF_8);
+        content = COMMENT.matcher(content).replaceAll(" ");
+        Set<String> identifiers = new HashSet<>();
+        Matcher identifierMatcher = TYPE_IDENTIFIER.matcher(content);
+        while (identifierMatcher.find()) {
+            identifiers.add(identifierMatcher.group());
+        }
+
+        Set<File> output = new LinkedHashSet<>();
+        List<String> packages = new ArrayList<>();
+        Matcher packageMatcher = PACKAGE.matcher(content);
+        packages.add(packageMatcher.find() ? packageMatcher.group(1) : "");
+        Matcher importMatcher = IMPORT.matcher(content);
+        while (importMatcher.find()) {
+            String name = importMatcher.group(2);
+            if (name.endsWith(".*")) {
+                packages.add(name.substring(0, name.length() - 2));
+                continue;
+            }
+            if (importMatcher.group(1) != null) {
+                // static import of a member
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+            File file = classes.get(name);
+            if (file != null) {
+                output.add(file);
+            }
+        }
+        for (String packageName : packages) {
+            for (String className : getClassesByPackage().getOrDefault(packageName, Collections.<String>emptyList())) {
+                String simpleName = packageName.isEmpty() ? className : className.substring(packageName.length() + 1);
+                if (identifiers.contains(simpleName)) {
+                    output.add(classes.get(className));
+                }
+            }
+        }
+        output.remove(sourceFile);
+        return output;
+    }
+
+    private Map<String, List<String>> getClassesByPackage() {
+        if (classesByPackage == null) {
+            classesByPackage = new HashMap<>();
+            for (String className : classes.keySet()) {
+                int index = className.lastIndexOf('.');
+                String packageName = index == -1 ? "" : className.substring(0, index);
+                List<String> packageClasses = classesByPackage.get(packageName);
+                if (packageClasses == null) {
+                    packageClasses = new ArrayList<>();
+                    classesByPackage.put(packageName, packageClasses);
+                }
+                packageClasses.add(className);
+            }
+        }
+        return classesByPackage;
+    }
+
+    public int size() {
+        return classes.size();
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Number of laps and of valid laps per NPEFix strategy, persisted between runs.
+ * The file is locked while it is read and updated, several executions can share it.
+ */
+public class StrategyStatistics {
+
+    private static final String LAPS_SUFFIX = ".laps";
+
+    private static final String VALID_SUFFIX = ".valid";
+
+    /**
+     * The file locks are held by the JVM, the executions of a same JVM are serialized on these monitors.
+     */
+    private static final ConcurrentMap<File, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final File file;
+
+    private final Properties properties;
+
+    private StrategyStatistics(File file, Properties properties) {
+        this.file = file;
+        this.properties = properties;
+    }
+
+    public static StrategyStatistics load(File file) throws IOException {
+        Properties properties = new Properties();
+        synchronized (getMonitor(file)) {
+            if (file.exists()) {
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                     FileLock lock = randomAccessFile.getChannel().lock(0, Long.MAX_VALUE, true)) {
+                    properties.load(new ByteArrayInputStream(read(randomAccessFile.getChannel())));
+                }
+            }
+        }
+        return new StrategyStatistics(file, properties);
+    }
+
+    public int getNbLaps(String strategy) {
+        return getInt(strategy + LAPS_SUFFIX);
+    }
+
+    public int getNbValidLaps(String strategy) {
+        return getInt(strategy + VALID_SUFFIX);
+    }
+
+    /**
+     * Laplace estimate of the probability of a valid lap, 1/2 for an unknown strategy.
+     */
+    public double getSuccessRate(String strategy) {
+        return (getNbValidLaps(strategy) + 1.0) / (getNbLaps(strategy) + 2.0);
+    }
+
+    /**
+     * @return the strategies by decreasing success rate, ties keeping the given order
+     */
+    public List<String> rank(Collection<String> strategies) {
+        List<String> output = new ArrayList<>(strategies);
+        Collections.sort(output, new Comparator<String>() {
+            @Override
+            public int compare(String s1, String s2) {
+                return Double.compare(getSuccessRate(s2), getSuccessRate(s1));
+            }
+        });
+        return output;
+    }
+
+    /**
+     * Adds the laps of a run to the statistics and saves them.
+     *
+     * @param laps number of laps and of valid laps by strategy
+     */
+    public void update(Map<String, int[]> laps) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        synchronized (getMonitor(file)) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                 FileLock lock = randomAccessFile.getChannel().lock()) {
+                FileChannel channel = randomAccessFile.getChannel();
+                // reload to include the runs that finished since the statistics were loaded
+                properties.clear();
+                properties.load(new ByteArrayInputStream(read(channel)));
+                for (Map.Entry<String, int[]> entry : laps.entrySet()) {
+                    properties.setProperty(entry.getKey() + LAPS_SUFFIX, Integer.toString(getNbLaps(entry.getKey()) + entry.getValue()[0]));
+                    properties.setProperty(entry.getKey() + VALID_SUFFIX, Integer.toString(getNbValidLaps(entry.getKey()) + entry.getValue()[1]));
+                }
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                properties.store(content, "NPEFix strategy statistics");
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(content.toByteArray()), 0);
+            }
+        }
+    }
+
+    /**
+     * @param laps number of laps and of valid laps by strategy, updated
+     */
+    public static void addLap(Map<String, int[]> laps, String strategy, boolean valid) {
+        int[] counts = laps.get(strategy);
+        if (counts == null) {
+            counts = new int[2];
+            laps.put(strategy, counts);
+        }
+        counts[0]++;
+        if (valid) {
+            counts[1]++;
+        }
+    }
+
+    private static Object getMonitor(File file) {
+        File canonicalFile;
+        try {
+            canonicalFile = file.getCanonicalFile();
+        } catch (IOException e) {
+            canonicalFile = file.getAbsoluteFile();
+        }
+        Object monitor = new Object();
+        Object previousMonitor = MONITORS.putIfAbsent(canonicalFile, monitor);
+        return previousMonitor == null ? monitor : previousMonitor;
+    }
+
+    private int getInt(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // read until the end of the file
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes test results in the XML format of the surefire reports, read by the {@link FailureIndex}.
+ */
+public class SurefireReportWriter {
+
+    private SurefireReportWriter() {
+    }
+
+    /**
+     * Writes TEST-className.xml in the report folder. The test cases of an existing
+     * report that are not executed again are kept.
+     *
+     * @param methods executed test methods
+     */
+    public static File write(File reportsDirectory, String className, List<String> methods, List<TestRunner.Failure> failures) throws IOException {
+        reportsDirectory.mkdirs();
+        File file = new File(reportsDirectory, "TEST-" + className + ".xml");
+        List<Element> keptTestCases = file.exists() ? readOtherTestCases(file, methods) : new ArrayList<Element>();
+        int nbFailures = 0;
+        int nbErrors = 0;
+        int nbSkipped = 0;
+        for (String method : methods) {
+            TestRunner.Failure failure = getFailure(failures, method);
+            if (failure == null) {
+                continue;
+            }
+            if (failure.isAssertionFailure()) {
+                nbFailures++;
+            } else {
+                nbErrors++;
+            }
+        }
+        for (Element testCase : keptTestCases) {
+            if (testCase.getElementsByTagName("failure").getLength() > 0) {
+                nbFailures++;
+            } else if (testCase.getElementsByTagName("error").getLength() > 0) {
+                nbErrors++;
+            } else if (testCase.getElementsByTagName("skipped").getLength() > 0) {
+                nbSkipped++;
+            }
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<testsuite name=\"" + escape(className) + "\" tests=\"" + (methods.size() + keptTestCases.size())
+                    + "\" failures=\"" + nbFailures + "\" errors=\"" + nbErrors
+                    + "\" skipped=\"" + nbSkipped + "\" time=\"0\">\n");
+            for (Element testCase : keptTestCases) {
+                writer.write("  " + toXML(testCase) + "\n");
+            }
+            for (String method : methods) {
+                writer.write("  <testcase name=\"" + escape(method) + "\" classname=\"" + escape(className) + "\" time=\"0\"");
+                TestRunner.Failure failure = getFailure(failures, method);
+                if (failure == null) {
+                    writer.write("/>\n");
+                    continue;
+                }
+                String element = failure.isAssertionFailure() ? "failure" : "error";
+                writer.write(">\n    <" + element);
+                if (failure.getMessage() != null) {
+                    writer.write(" message=\"" + escape(failure.getMessage()) + "\"");
+                }
+                if (failure.getType() != null) {
+                    writer.write(" type=\"" + escape(failure.getType()) + "\"");
+                }
+                writer.write(">" + escape(failure.getTrace() == null ? "" : failure.getTrace()) + "</" + element + ">\n");
+                writer.write("  </testcase>\n");
+            }
+            writer.write("</testsuite>\n");
+        }
+        return file;
+    }
+
+    /**
+     * @return the test cases of the report that are not in methods
+     */
+    private static List<Element> readOtherTestCases(File report, List<String> methods) throws IOException {
+        NodeList testCases;
+        try {
+            testCases = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report).getElementsByTagName("testcase");
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unable to read the report " + report, e);
+        }
+        List<Element> result = new ArrayList<>();
+        for (int i = 0; i < testCases.getLength(); i++) {
+            Element testCase = (Element) testCases.item(i);
+            if (!methods.contains(testCase.getAttribute("name"))) {
+                result.add(testCase);
+            }
+        }
+        return result;
+    }
+
+    private static String toXML(Node node) throws IOException {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(node), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException e) {
+            throw new IOException("Unable to write the test case " + ((Element) node).getAttribute("name"), e);
+        }
+    }
+
+    private static TestRunner.Failure getFailure(List<TestRunner.Failure> failures, String method) {
+        for (TestRunner.Failure failure : failures) {
+            // a failure without method (class initialization) fails all the methods
+            if (failure.getMethodName() == null || failure.getMethodName().equals(method)) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            default:
+                // the control characters are not allowed in XML 1.0
+                if (c < 0x20 && c != '\n' && c != '\r' && c != '\t') {
+                    sb.append(' ');
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
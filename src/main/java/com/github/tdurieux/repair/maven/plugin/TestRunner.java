@@ -0,0 +1,221 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs JUnit tests in a given class loader. JUnit is loaded from the class
+ * loader, the runner does not depend on the JUnit version of the plugin.
+ */
+public class TestRunner {
+
+    private TestRunner() {
+    }
+
+    /**
+     * @param tests test classes or test methods (class#method)
+     */
+    public static Result run(ClassLoader classLoader, List<String> tests) {
+        Result result = new Result();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            Class<?> junitCoreClass = classLoader.loadClass("org.junit.runner.JUnitCore");
+            Class<?> requestClass = classLoader.loadClass("org.junit.runner.Request");
+            Object junitCore = junitCoreClass.newInstance();
+            Method runMethod = junitCoreClass.getMethod("run", requestClass);
+            for (String test : tests) {
+                int index = test.indexOf('#');
+                Class<?> testClass = classLoader.loadClass(index == -1 ? test : test.substring(0, index));
+                Object request;
+                if (index == -1) {
+                    request = requestClass.getMethod("aClass", Class.class).invoke(null, testClass);
+                } else {
+                    request = requestClass.getMethod("method", Class.class, String.class).invoke(null, testClass, test.substring(index + 1));
+                }
+                Object junitResult = runMethod.invoke(junitCore, request);
+                result.runCount += (Integer) junitResult.getClass().getMethod("getRunCount").invoke(junitResult);
+                for (Object failure : (List<?>) junitResult.getClass().getMethod("getFailures").invoke(junitResult)) {
+                    result.failures.add(toFailure(failure));
+                }
+            }
+        } catch (InvocationTargetException e) {
+            result.error = e.getCause().toString();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            result.error = e.toString();
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        return result;
+    }
+
+    private static Failure toFailure(Object junitFailure) throws ReflectiveOperationException {
+        Object description = junitFailure.getClass().getMethod("getDescription").invoke(junitFailure);
+        Throwable exception = (Throwable) junitFailure.getClass().getMethod("getException").invoke(junitFailure);
+        return new Failure(
+                (String) description.getClass().getMethod("getClassName").invoke(description),
+                (String) description.getClass().getMethod("getMethodName").invoke(description),
+                exception == null ? null : exception.getClass().getName(),
+                exception == null ? null : exception.getMessage(),
+                (String) junitFailure.getClass().getMethod("getTrace").invoke(junitFailure));
+    }
+
+    private static void writeNullable(DataOutput output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(truncate(value));
+        }
+    }
+
+    private static String readNullable(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static String truncate(String message) {
+        // writeUTF is limited to 65535 bytes
+        return message.length() > 16000 ? message.substring(0, 16000) : message;
+    }
+
+    public static class Failure {
+
+        private final String className;
+
+        private final String methodName;
+
+        private final String type;
+
+        private final String message;
+
+        private final String trace;
+
+        Failure(String className, String methodName, String type, String message, String trace) {
+            this.className = className;
+            this.methodName = methodName;
+            this.type = type;
+            this.message = message;
+            this.trace = trace;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return null for a failure of the whole class
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * @return the class of the exception, null if unknown
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getTrace() {
+            return trace;
+        }
+
+        /**
+         * @return true for a failed assertion, false for an unexpected exception
+         */
+        public boolean isAssertionFailure() {
+            return type != null && (type.equals(AssertionError.class.getName()) || type.endsWith("AssertionFailedError") || type.endsWith("ComparisonFailure"));
+        }
+
+        void write(DataOutput output) throws IOException {
+            writeNullable(output, className);
+            writeNullable(output, methodName);
+            writeNullable(output, type);
+            writeNullable(output, message);
+            writeNullable(output, trace);
+        }
+
+        static Failure read(DataInput input) throws IOException {
+            return new Failure(readNullable(input), readNullable(input), readNullable(input), readNullable(input), readNullable(input));
+        }
+
+        @Override
+        public String toString() {
+            return methodName + "(" + className + "): " + message;
+        }
+    }
+
+    public static class Result {
+
+        private int runCount;
+
+        private final List<Failure> failures = new ArrayList<>();
+
+        private String error;
+
+        static Result error(String error) {
+            Result result = new Result();
+            result.error = error;
+            return result;
+        }
+
+        public int getRunCount() {
+            return runCount;
+        }
+
+        /**
+         * @return the failing tests with their message
+         */
+        public List<Failure> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * @return the reason why the tests could not be executed, null if they were
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null && failures.isEmpty() && runCount > 0;
+        }
+
+        void write(DataOutput output) throws IOException {
+            output.writeInt(runCount);
+            output.writeInt(failures.size());
+            for (Failure failure : failures) {
+                failure.write(output);
+            }
+            writeNullable(output, error);
+        }
+
+        static Result read(DataInput input) throws IOException {
+            Result result = new Result();
+            result.runCount = input.readInt();
+            int nbFailures = input.readInt();
+            for (int i = 0; i < nbFailures; i++) {
+                result.failures.add(Failure.read(input));
+            }
+            result.error = readNullable(input);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return "error: " + error;
+            }
+            return runCount + " tests, " + failures.size() + " failures";
+        }
+    }
+}
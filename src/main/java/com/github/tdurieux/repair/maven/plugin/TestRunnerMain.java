@@ -0,0 +1,115 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of the test JVMs of the {@link ValidationPool}.
+ *
+ * The JVM receives on its standard input the dependencies and the output
+ * folders of the project, loads the dependencies once, then executes the
+ * candidates one after the other, each one in a new {@link CandidateClassLoader}.
+ * The results are written on the standard output, the output of the tests
+ * is redirected to the standard error.
+ */
+public class TestRunnerMain {
+
+    static final int READY = 0x52;
+
+    static final int EXIT = -1;
+
+    public static void main(String[] args) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+
+        // the plugin classes are not visible from the tests
+        URLClassLoader dependencies = new URLClassLoader(toURLs(readStrings(input)), ClassLoader.getSystemClassLoader().getParent());
+        URL[] projectFolders = toURLs(readStrings(input));
+        try {
+            dependencies.loadClass("org.junit.runner.JUnitCore");
+        } catch (ClassNotFoundException e) {
+            System.err.println("JUnit is not in the test classpath");
+        }
+        output.writeByte(READY);
+        output.flush();
+
+        while (true) {
+            int nbClasses;
+            try {
+                nbClasses = input.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (nbClasses == EXIT) {
+                break;
+            }
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (int i = 0; i < nbClasses; i++) {
+                String name = input.readUTF();
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            List<String> tests = readStrings(input);
+
+            TestRunner.Result result;
+            try (CandidateClassLoader classLoader = new CandidateClassLoader(projectFolders, classes, dependencies)) {
+                result = TestRunner.run(classLoader, tests);
+            }
+            result.write(output);
+            output.flush();
+        }
+        // the tests may have started non daemon threads
+        System.exit(0);
+    }
+
+    static void writeRequest(DataOutput output, Map<String, byte[]> classes, List<String> tests) throws IOException {
+        output.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeInt(entry.getValue().length);
+            output.write(entry.getValue());
+        }
+        writeStrings(output, tests);
+    }
+
+    static void writeStrings(DataOutput output, List<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            output.writeUTF(value);
+        }
+    }
+
+    static List<String> readStrings(DataInput input) throws IOException {
+        int size = input.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(input.readUTF());
+        }
+        return values;
+    }
+
+    private static URL[] toURLs(List<String> paths) throws IOException {
+        URL[] urls = new URL[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            urls[i] = new File(paths.get(i)).toURI().toURL();
+        }
+        return urls;
+    }
+}
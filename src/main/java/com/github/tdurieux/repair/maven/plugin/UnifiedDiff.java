@@ -0,0 +1,161 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the unified diffs of the repair tools (Astor variants, NPEFix lapses) to the source files.
+ */
+public class UnifiedDiff {
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*");
+
+    private UnifiedDiff() {
+    }
+
+    /**
+     * @param roots folders against which the paths of the diff are resolved,
+     *              the paths being absolute, relative to a root or ending with a path relative to a root
+     * @return the patched content of each modified file, null if the text is not a unified diff
+     * @throws IOException if a file of the diff is not found or if a hunk does not match its file
+     */
+    public static Map<File, String> apply(String diff, List<File> roots) throws IOException {
+        if (diff == null || !diff.contains("+++ ") || !diff.contains("@@")) {
+            return null;
+        }
+        Map<File, List<String>> files = new LinkedHashMap<>();
+        List<String> lines = null;
+        int offset = 0;
+        BufferedReader reader = new BufferedReader(new StringReader(diff));
+        String line = reader.readLine();
+        while (line != null) {
+            if (line.startsWith("+++ ")) {
+                File file = resolve(getPath(line), roots);
+                lines = files.get(file);
+                if (lines == null) {
+                    lines = new ArrayList<>(Arrays.asList(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\r?\n", -1)));
+                    files.put(file, lines);
+                }
+                offset = 0;
+                line = reader.readLine();
+            } else if (line.startsWith("@@") && lines != null) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (!matcher.matches()) {
+                    throw new IOException("Invalid hunk header: " + line);
+                }
+                List<String> oldLines = new ArrayList<>();
+                List<String> newLines = new ArrayList<>();
+                line = reader.readLine();
+                while (line != null && !line.startsWith("@@") && !line.startsWith("--- ") && !line.startsWith("diff ")) {
+                    if (line.startsWith("-")) {
+                        oldLines.add(line.substring(1));
+                    } else if (line.startsWith("+")) {
+                        newLines.add(line.substring(1));
+                    } else if (line.startsWith(" ") || line.isEmpty()) {
+                        oldLines.add(line.isEmpty() ? "" : line.substring(1));
+                        newLines.add(line.isEmpty() ? "" : line.substring(1));
+                    }
+                    // the "\ No newline at end of file" markers are ignored
+                    line = reader.readLine();
+                }
+                // an empty range starts after the given line
+                int start = Integer.parseInt(matcher.group(1)) - (oldLines.isEmpty() ? 0 : 1) + offset;
+                int position = find(lines, oldLines, start);
+                if (position == -1) {
+                    throw new IOException("The hunk " + matcher.group() + " does not match the file");
+                }
+                for (int i = 0; i < oldLines.size(); i++) {
+                    lines.remove(position);
+                }
+                lines.addAll(position, newLines);
+                offset += position - start + newLines.size() - oldLines.size();
+            } else {
+                line = reader.readLine();
+            }
+        }
+        Map<File, String> output = new LinkedHashMap<>();
+        for (Map.Entry<File, List<String>> file : files.entrySet()) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < file.getValue().size(); i++) {
+                content.append(i == 0 ? "" : "\n").append(file.getValue().get(i));
+            }
+            output.put(file.getKey(), content.toString());
+        }
+        return output;
+    }
+
+    /**
+     * @return the position of the lines in the file closest to the expected position, -1 if not found
+     */
+    private static int find(List<String> lines, List<String> expected, int start) {
+        for (int distance = 0; distance <= lines.size(); distance++) {
+            for (int position : new int[] {start - distance, start + distance}) {
+                if (matches(lines, expected, position)) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(List<String> lines, List<String> expected, int position) {
+        if (position < 0 || position + expected.size() > lines.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            // the tools do not preserve the trailing spaces
+            if (!lines.get(position + i).trim().equals(expected.get(i).trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getPath(String line) {
+        String path = line.substring(4);
+        int tab = path.indexOf('\t');
+        if (tab != -1) {
+            path = path.substring(0, tab);
+        }
+        path = path.trim();
+        if (path.startsWith("a/") || path.startsWith("b/")) {
+            path = path.substring(2);
+        }
+        return path;
+    }
+
+    static File resolve(String path, List<File> roots) throws IOException {
+        File file = new File(path);
+        if (file.isAbsolute() && file.isFile()) {
+            return file;
+        }
+        String[] segments = path.replace('\\', '/').split("/");
+        for (File root : roots) {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].isEmpty()) {
+                    continue;
+                }
+                StringBuilder suffix = new StringBuilder();
+                for (int j = i; j < segments.length; j++) {
+                    suffix.append(j == i ? "" : "/").append(segments[j]);
+                }
+                File candidate = new File(root, suffix.toString());
+                if (candidate.isFile()) {
+                    return candidate;
+                }
+            }
+        }
+        throw new IOException("File " + path + " not found");
+    }
+}
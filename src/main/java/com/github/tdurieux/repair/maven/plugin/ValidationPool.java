@@ -0,0 +1,235 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of warm test JVMs validating candidate patches.
+ *
+ * Each JVM keeps the dependencies of the project loaded and runs the tests of
+ * a candidate in a new class loader containing the compiled classes of the
+ * candidate, which avoids starting a JVM and loading the classpath for each
+ * candidate. A JVM that exceeds the timeout or dies is replaced.
+ */
+public class ValidationPool implements Closeable {
+
+    private final List<String> dependencies = new ArrayList<>();
+
+    private final List<String> projectFolders = new ArrayList<>();
+
+    private final List<String> jvmOptions = new ArrayList<>();
+
+    private long timeout = TimeUnit.MINUTES.toMillis(5);
+
+    private File logFile;
+
+    private BlockingQueue<Worker> workers;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * @param dependencies classpath shared by the candidates
+     * @param projectFolders output folders of the project, loaded again for each candidate
+     */
+    public ValidationPool(List<URL> dependencies, List<File> projectFolders) {
+        for (URL dependency : dependencies) {
+            this.dependencies.add(new File(dependency.getPath()).getAbsolutePath());
+        }
+        for (File projectFolder : projectFolders) {
+            this.projectFolders.add(projectFolder.getAbsolutePath());
+        }
+    }
+
+    public ValidationPool setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions.clear();
+        this.jvmOptions.addAll(jvmOptions);
+        return this;
+    }
+
+    /**
+     * @param timeout maximum duration of the tests of a candidate in milliseconds
+     */
+    public ValidationPool setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param logFile file receiving the output of the tests, the standard error when null
+     */
+    public ValidationPool setLogFile(File logFile) {
+        this.logFile = logFile;
+        return this;
+    }
+
+    /**
+     * Starts the JVMs and waits until they are ready.
+     */
+    public ValidationPool start(int size) throws IOException {
+        workers = new ArrayBlockingQueue<>(Math.max(1, size));
+        for (int i = 0; i < Math.max(1, size); i++) {
+            workers.add(new Worker());
+        }
+        return this;
+    }
+
+    /**
+     * Runs the tests with the classes of a candidate, blocks until a JVM is available.
+     *
+     * @param classes bytecode of the patched classes by binary name
+     * @param tests test classes or test methods (class#method)
+     */
+    public TestRunner.Result validate(Map<String, byte[]> classes, List<String> tests) throws IOException, InterruptedException {
+        Worker worker = workers.take();
+        try {
+            if (worker.isBroken()) {
+                worker = worker.replace();
+            }
+            return worker.validate(classes, tests);
+        } finally {
+            if (worker.isBroken()) {
+                try {
+                    worker = worker.replace();
+                } catch (IOException e) {
+                    // replaced by the next validation
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            workers.put(worker);
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        if (workers == null) {
+            return;
+        }
+        for (Worker worker : workers) {
+            worker.close();
+        }
+        workers.clear();
+    }
+
+    private List<String> getCommand() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        try {
+            command.add(new File(TestRunnerMain.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath());
+        } catch (URISyntaxException e) {
+            throw new IOException("Unable to locate the plugin classes", e);
+        }
+        command.add(TestRunnerMain.class.getName());
+        return command;
+    }
+
+    private class Worker {
+
+        private final Process process;
+
+        private final DataOutputStream output;
+
+        private final DataInputStream input;
+
+        private boolean broken = false;
+
+        Worker() throws IOException {
+            ProcessBuilder processBuilder = new ProcessBuilder(getCommand());
+            if (logFile == null) {
+                processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            } else {
+                processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(logFile));
+            }
+            process = processBuilder.start();
+            output = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            input = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            TestRunnerMain.writeStrings(output, dependencies);
+            TestRunnerMain.writeStrings(output, projectFolders);
+            output.flush();
+            if (input.read() != TestRunnerMain.READY) {
+                process.destroy();
+                throw new IOException("The test JVM did not start");
+            }
+        }
+
+        /**
+         * @return true if a validation failed or the JVM stopped, the worker must be replaced
+         */
+        boolean isBroken() {
+            if (broken) {
+                return true;
+            }
+            try {
+                process.exitValue();
+                return true;
+            } catch (IllegalThreadStateException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Stops the JVM, waits for its end and starts a new one.
+         */
+        Worker replace() throws IOException, InterruptedException {
+            process.destroy();
+            process.waitFor();
+            return new Worker();
+        }
+
+        TestRunner.Result validate(Map<String, byte[]> classes, List<String> tests) {
+            final AtomicBoolean timedOut = new AtomicBoolean(false);
+            ScheduledFuture<?> kill = timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // set before the streams are closed by destroy
+                    timedOut.set(true);
+                    process.destroy();
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            try {
+                TestRunnerMain.writeRequest(output, classes, tests);
+                output.flush();
+                return TestRunner.Result.read(input);
+            } catch (IOException e) {
+                broken = true;
+                process.destroy();
+                if (timedOut.get()) {
+                    return TestRunner.Result.error("Timeout after " + timeout + "ms");
+                }
+                return TestRunner.Result.error("The test JVM stopped: " + e);
+            } finally {
+                kill.cancel(false);
+            }
+        }
+
+        void close() {
+            try {
+                output.writeInt(TestRunnerMain.EXIT);
+                output.flush();
+            } catch (IOException e) {
+                // already stopped
+            }
+            process.destroy();
+        }
+    }
+}
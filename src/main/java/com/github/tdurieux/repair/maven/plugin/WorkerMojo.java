@@ -0,0 +1,58 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+
+/**
+ * Executes the repair jobs of a coordinator until all of them are done.
+ * The bugs and the result folder must be reachable with the same paths as on the coordinator.
+ */
+@Mojo( name = "worker", requiresProject = false)
+public class WorkerMojo extends AbstractMojo {
+
+    /**
+     * Address of the coordinator, host:port.
+     */
+    @Parameter( property = "coordinator", required = true )
+    private String coordinator;
+
+    /**
+     * Shared folder of the results, one folder per job.
+     */
+    @Parameter( defaultValue = "${basedir}/repair-results", property = "resultDir", required = true )
+    private File resultDirectory;
+
+    @Parameter(defaultValue = "8192", property = "forkMaxHeap")
+    private int forkMaxHeap;
+
+    @Parameter( defaultValue = "${session}", readonly = true )
+    private MavenSession session;
+
+    @Parameter( defaultValue = "${plugin}", readonly = true )
+    private PluginDescriptor plugin;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        int index = coordinator.lastIndexOf(':');
+        if (index == -1) {
+            throw new MojoExecutionException("The coordinator address must be host:port: " + coordinator);
+        }
+        String host = coordinator.substring(0, index);
+        int port;
+        try {
+            port = Integer.parseInt(coordinator.substring(index + 1));
+        } catch (NumberFormatException e) {
+            throw new MojoExecutionException("Invalid port in the coordinator address " + coordinator, e);
+        }
+        String goalPrefix = plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getVersion();
+        new RepairWorker(host, port, goalPrefix, resultDirectory, forkMaxHeap)
+                .setOffline(session.isOffline())
+                .run();
+    }
+}
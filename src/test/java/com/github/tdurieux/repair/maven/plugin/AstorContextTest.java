@@ -0,0 +1,70 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class AstorContextTest extends TestCase {
+
+	private File location;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		location = Files.createTempDirectory("astor-context").toFile();
+		new File(location, "src/main/java").mkdirs();
+		new File(location, "target/classes").mkdirs();
+	}
+
+	private AstorContext createContext() {
+		return new AstorContext()
+				.setMode("jkali")
+				.setLocation(location)
+				.setOut(new File(location, "out").getAbsolutePath())
+				.addSrcJavaFolder("/src/main/java")
+				.addSrcJavaFolder(null)
+				.addBinJavaFolder("/target/classes")
+				.addFailing("a.ATest")
+				.addFailing("b.BTest")
+				.setMaxGen(10)
+				.setStopFirst(true);
+	}
+
+	public void testArgsAreOrderedAndTyped() throws Exception {
+		List<String> args = Arrays.asList(createContext().getAstorArgs());
+
+		assertEquals(0, args.indexOf("-mode"));
+		assertEquals("jkali", args.get(1));
+		assertEquals("a.ATest:b.BTest", args.get(args.indexOf("-failing") + 1));
+		assertEquals("/src/main/java", args.get(args.indexOf("-srcjavafolder") + 1));
+		assertEquals("10", args.get(args.indexOf("-maxgen") + 1));
+		assertEquals("true", args.get(args.indexOf("-stopfirst") + 1));
+		assertFalse(args.contains("-skipfaultlocalization"));
+		assertFalse(args.contains("-package"));
+		assertFalse(args.contains("-srctestfolder"));
+		assertTrue(args.indexOf("-failing") < args.indexOf("-out"));
+	}
+
+	public void testArgsAreRecomputedAfterModification() throws Exception {
+		AstorContext context = createContext();
+		List<String> before = Arrays.asList(context.getAstorArgs());
+		assertEquals(before, Arrays.asList(context.getAstorArgs()));
+
+		context.setSeed(42);
+		List<String> after = Arrays.asList(context.getAstorArgs());
+		assertEquals("42", after.get(after.indexOf("-seed") + 1));
+	}
+
+	public void testMissingFolderIsRejected() throws Exception {
+		AstorContext context = createContext().addSrcTestFolder("/src/test/java");
+		try {
+			context.getAstorArgs();
+			fail("The missing test folder should be detected");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("/src/test/java"));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class CandidateValidatorTest extends TestCase {
+
+	public void testCandidateNotCompiling() throws Exception {
+		File root = Files.createTempDirectory("project").toFile();
+		File file = new File(root, "a/B.java");
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), "package a;\npublic class B {\n    int get() {\n        return 1;\n    }\n}\n".getBytes(StandardCharsets.UTF_8));
+		String compiling = "--- a/a/B.java\n+++ b/a/B.java\n@@ -4 +4 @@\n-        return 1;\n+        return 2;\n";
+		String notCompiling = "--- a/a/B.java\n+++ b/a/B.java\n@@ -4 +4 @@\n-        return 1;\n+        return unknown;\n";
+		RepairResult result = new RepairResult("npefix", 1, 2)
+				.addCandidate(new RepairResult.Candidate("lapse-0", true, compiling, 5))
+				.addCandidate(new RepairResult.Candidate("lapse-1", true, notCompiling, 5))
+				.addCandidate(new RepairResult.Candidate("patch-0", true, "o != null", -1));
+
+		try (InMemoryCompiler compiler = new InMemoryCompiler(Collections.<URL>emptyList(), 8)) {
+			RepairResult validated = new CandidateValidator(compiler, null, Collections.singletonList(root)).validate(result);
+			assertEquals(3, validated.getCandidates().size());
+			assertTrue(validated.getCandidates().get(0).isValid());
+			assertFalse(validated.getCandidates().get(1).isValid());
+			// not a diff, kept as it is
+			assertTrue(validated.getCandidates().get(2).isValid());
+		}
+	}
+
+	public void testTestsNotExecutable() throws Exception {
+		File root = Files.createTempDirectory("project").toFile();
+		Files.write(new File(root, "B.java").toPath(), "public class B {\n    int get() {\n        return 1;\n    }\n}\n".getBytes(StandardCharsets.UTF_8));
+		RepairResult result = new RepairResult("npefix", 1, 2).addFailingTest("BTest#test")
+				.addCandidate(new RepairResult.Candidate("lapse-0", true, "--- a/B.java\n+++ b/B.java\n@@ -3 +3 @@\n-        return 1;\n+        return 2;\n", 5));
+
+		// JUnit is not in the classpath of the pool, the candidate cannot be validated
+		try (InMemoryCompiler compiler = new InMemoryCompiler(Collections.<URL>emptyList(), 8);
+			 ValidationPool pool = new ValidationPool(Collections.<URL>emptyList(), Collections.singletonList(root)).start(1)) {
+			RepairResult validated = new CandidateValidator(compiler, pool, Collections.singletonList(root)).validate(result);
+			RepairResult.Candidate candidate = validated.getCandidates().get(0);
+			assertTrue(candidate.isValid());
+			assertTrue(candidate.getTests().isEmpty());
+		}
+	}
+
+	public void testGetClassName() {
+		assertEquals("a.b.C", CandidateValidator.getClassName(new File("C.java"), "/* header */\npackage a.b;\nclass C {}"));
+		assertEquals("C", CandidateValidator.getClassName(new File("C.java"), "class C {}"));
+	}
+}
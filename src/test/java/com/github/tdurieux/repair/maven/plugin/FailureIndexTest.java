@@ -0,0 +1,52 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class FailureIndexTest extends TestCase {
+
+	private static final String NPE_IN_B = "java.lang.NullPointerException\n"
+			+ "\tat a.B.b(B.java:3)\n"
+			+ "\tat a.BTest.testB(BTest.java:10)\n";
+
+	private static final String NPE_IN_C = "java.lang.NullPointerException\n"
+			+ "\tat a.C.c(C.java:5)\n"
+			+ "\tat a.CTest.testC(CTest.java:10)\n";
+
+	private static final String ASSERTION_IN_TEST = "java.lang.AssertionError: expected 1\n"
+			+ "\tat org.junit.Assert.fail(Assert.java:88)\n"
+			+ "\tat a.DTest.testD(DTest.java:10)\n";
+
+	public void testClusters() {
+		FailureIndex index = new FailureIndex();
+		index.add(new FailingTest(null, "a.BTest", "testB1", NPE_IN_B));
+		index.add(new FailingTest(null, "a.CTest", "testC", NPE_IN_C));
+		index.add(new FailingTest(null, "a.ATest", "testB2", NPE_IN_B));
+		index.add(new FailingTest(null, "a.DTest", "testD", ASSERTION_IN_TEST));
+
+		List<FailureCluster> clusters = index.getClusters();
+		assertEquals(3, clusters.size());
+		assertEquals("java.lang.NullPointerException@a.B.b", clusters.get(0).getLocation());
+		assertEquals(Arrays.asList("a.BTest", "a.ATest"), clusters.get(0).getTestClasses());
+		assertEquals("java.lang.NullPointerException@a.C.c", clusters.get(1).getLocation());
+		// the frames of the test frameworks are skipped
+		assertEquals("java.lang.AssertionError@a.DTest.testD", clusters.get(2).getLocation());
+		assertEquals(Arrays.asList("a.BTest", "a.CTest", "a.ATest", "a.DTest"), index.getFailingTestClasses());
+	}
+
+	public void testTestClassGroups() {
+		FailureIndex index = new FailureIndex();
+		index.add(new FailingTest(null, "a.BTest", "testB", NPE_IN_B));
+		index.add(new FailingTest(null, "a.DTest", "testD", ASSERTION_IN_TEST));
+		// a.BTest fails at two locations, its clusters are merged
+		index.add(new FailingTest(null, "a.BTest", "testC", NPE_IN_C));
+		index.add(new FailingTest(null, "a.CTest", "testC", NPE_IN_C));
+
+		List<List<String>> groups = FailureCluster.getTestClassGroups(index.getClusters());
+		assertEquals(2, groups.size());
+		assertEquals(Arrays.asList("a.DTest"), groups.get(0));
+		assertEquals(Arrays.asList("a.BTest", "a.CTest"), groups.get(1));
+	}
+}
@@ -0,0 +1,85 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class FlakyTestDetectorTest extends TestCase {
+
+	public void testGetPassingTests() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(2);
+		output.writeInt(1);
+		new TestRunner.Failure("a.BTest", "testB", "java.lang.NullPointerException", null, "").write(output);
+		output.writeBoolean(false);
+		TestRunner.Result result = TestRunner.Result.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		List<String> tests = Arrays.asList("a.BTest#testA", "a.BTest#testB");
+		assertEquals(Collections.singletonList("a.BTest#testA"), FlakyTestDetector.getPassingTests(tests, result));
+		assertTrue(FlakyTestDetector.getPassingTests(tests, TestRunner.Result.error("timeout")).isEmpty());
+	}
+
+	public void testClassify() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(2);
+		output.writeInt(1);
+		new TestRunner.Failure("a.BTest", "testB", "java.lang.AssertionError", null, "").write(output);
+		output.writeBoolean(false);
+		TestRunner.Result failingB = TestRunner.Result.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		bytes = new ByteArrayOutputStream();
+		output = new DataOutputStream(bytes);
+		output.writeInt(2);
+		output.writeInt(0);
+		output.writeBoolean(false);
+		TestRunner.Result passing = TestRunner.Result.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		List<String> tests = Arrays.asList("a.BTest#testA", "a.BTest#testB");
+		List<String> ids = Arrays.asList("a.BTest#testA", "a.BTest#testB", "a.CTest#testC");
+		Map<String, FlakyTestDetector.Classification> classification = FlakyTestDetector.classify(ids,
+				Arrays.asList(tests, tests, tests, Collections.singletonList("a.CTest#testC")),
+				Arrays.asList(failingB, passing, TestRunner.Result.error("timeout"), null));
+		assertEquals(2, classification.size());
+		// the test failed in the surefire report
+		assertEquals(FlakyTestDetector.Classification.NOT_REPRODUCIBLE, classification.get("a.BTest#testA"));
+		assertEquals(FlakyTestDetector.Classification.FLAKY, classification.get("a.BTest#testB"));
+
+		classification = FlakyTestDetector.classify(ids, Arrays.asList(tests, tests), Arrays.asList(failingB, failingB));
+		assertEquals(FlakyTestDetector.Classification.DETERMINISTIC, classification.get("a.BTest#testB"));
+		assertTrue(classification.get("a.BTest#testA").isExcluded());
+		assertFalse(classification.get("a.BTest#testB").isExcluded());
+	}
+
+	public void testClassification() throws Exception {
+		File directory = Files.createTempDirectory("target").toFile();
+		File reports = new File(directory, "surefire-reports");
+		reports.mkdirs();
+		File report = new File(reports, "TEST-a.BTest.xml");
+		Files.write(report.toPath(), new byte[0]);
+		report.setLastModified(System.currentTimeMillis() - 10000);
+		File file = new File(directory, "flaky-tests.properties");
+
+		assertTrue(FlakyTestDetector.loadClassification(file, reports).isEmpty());
+		FlakyTestDetector.saveClassification(file, Collections.singletonMap("a.BTest#testA", FlakyTestDetector.Classification.FLAKY));
+		FlakyTestDetector.saveClassification(file, Collections.singletonMap("a.BTest#testB", FlakyTestDetector.Classification.DETERMINISTIC));
+
+		Map<String, FlakyTestDetector.Classification> classification = FlakyTestDetector.loadClassification(file, reports);
+		assertEquals(2, classification.size());
+		assertEquals(FlakyTestDetector.Classification.FLAKY, classification.get("a.BTest#testA"));
+		assertEquals(FlakyTestDetector.Classification.DETERMINISTIC, classification.get("a.BTest#testB"));
+
+		// the report was written again after the classification
+		report.setLastModified(file.lastModified() + 10000);
+		assertTrue(FlakyTestDetector.loadClassification(file, reports).isEmpty());
+	}
+}
@@ -0,0 +1,65 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GitChangeScopeTest extends TestCase {
+
+	public void testParse() throws Exception {
+		File root = Files.createTempDirectory("git-change-scope").toFile();
+		GitChangeScope scope = GitChangeScope.parse(root, "HEAD~1",
+				"src/main/java/a/A.java\0src/main/java/b/B.java\0", "src/main/java/c/New File.java\0");
+
+		File a = new File(root, "src/main/java/a/A.java");
+		File b = new File(root, "src/main/java/b/B.java");
+		assertEquals(3, scope.getChangedFiles().size());
+		assertTrue(scope.isChanged(a));
+		assertTrue(scope.isChanged(b));
+		assertTrue(scope.isChanged(new File(root, "src/main/java/c/New File.java")));
+		assertFalse(scope.isChanged(new File(root, "src/main/java/c/C.java")));
+
+		List<File> inA = scope.getChangedFiles(Arrays.asList(new File(root, "src/main/java/a")));
+		assertEquals(1, inA.size());
+		assertTrue(scope.isChanged(inA.get(0)));
+	}
+
+	public void testCompute() throws Exception {
+		File root = Files.createTempDirectory("git-change-scope").toFile();
+		File unchanged = write(root, "src/main/java/a/A.java");
+		File changed = write(root, "src/main/java/a/Space Name.java");
+		git(root, "init", "-q");
+		git(root, "add", ".");
+		git(root, "-c", "user.name=test", "-c", "user.email=test@test", "commit", "-q", "-m", "base");
+
+		Files.write(changed.toPath(), "class B { int b; }".getBytes(StandardCharsets.UTF_8));
+		File untracked = write(root, "src/main/java/b/New File.java");
+		write(root, "README");
+
+		GitChangeScope scope = GitChangeScope.compute(new File(root, "src"), "HEAD");
+		assertEquals(2, scope.getChangedFiles().size());
+		assertTrue(scope.isChanged(changed));
+		assertTrue(scope.isChanged(untracked));
+		assertFalse(scope.isChanged(unchanged));
+	}
+
+	private static File write(File root, String path) throws Exception {
+		File file = new File(root, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static void git(File directory, String... args) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(Arrays.asList(args));
+		Process process = new ProcessBuilder(command).directory(directory).inheritIO().start();
+		assertEquals(0, process.waitFor());
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class InMemoryCompilerTest extends TestCase {
+
+	public void testCompile() throws Exception {
+		try (InMemoryCompiler compiler = new InMemoryCompiler(Collections.<URL>emptyList(), 8)) {
+			Map<String, String> sources = new HashMap<>();
+			sources.put("a.B", "package a; public class B { public int get() { return new C().get(); } static class C { int get() { return 1; } } }");
+			InMemoryCompiler.Compilation compilation = compiler.compile(sources);
+			assertTrue(compilation.getErrors().toString(), compilation.isSuccess());
+			assertEquals(2, compilation.getClasses().size());
+			byte[] bytecode = compilation.getClasses().get("a.B");
+			assertNotNull(bytecode);
+			assertEquals(0xCAFEBABE, ((bytecode[0] & 0xFF) << 24) | ((bytecode[1] & 0xFF) << 16) | ((bytecode[2] & 0xFF) << 8) | (bytecode[3] & 0xFF));
+			assertNotNull(compilation.getClasses().get("a.B$C"));
+		}
+	}
+
+	public void testCompilationError() throws Exception {
+		// the default compliance level of the plugin is raised when the JDK no longer supports it
+		try (InMemoryCompiler compiler = new InMemoryCompiler(Collections.<URL>emptyList(), 5)) {
+			Map<String, String> sources = new HashMap<>();
+			sources.put("a.B", "package a; public class B { int get() { return unknown; } }");
+			InMemoryCompiler.Compilation compilation = compiler.compile(sources);
+			assertFalse(compilation.isSuccess());
+			assertTrue(compilation.getClasses().isEmpty());
+			assertEquals(1, compilation.getErrors().size());
+			assertTrue(compilation.getErrors().get(0).contains("unknown"));
+		}
+	}
+
+	public void testCompileAgainstClasspath() throws Exception {
+		URL classes = new File(Pair.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toURI().toURL();
+		try (InMemoryCompiler compiler = new InMemoryCompiler(Collections.singletonList(classes), 8)) {
+			Map<String, String> sources = new HashMap<>();
+			sources.put("a.B", "package a; public class B { Object get() { return new com.github.tdurieux.repair.maven.plugin.Pair<String, String>(\"a\", \"b\"); } }");
+			InMemoryCompiler.Compilation compilation = compiler.compile(sources);
+			assertTrue(compilation.getErrors().toString(), compilation.isSuccess());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+public class JvmSizingTest extends TestCase {
+
+	private static final long MB = 1024 * 1024;
+
+	public void testSmallProject() {
+		JvmSizing sizing = JvmSizing.compute(MB, 10 * MB, 8192);
+		assertEquals(512 + 64 + 20, sizing.getHeap());
+		assertEquals(256 + 10, sizing.getMetaspace());
+		assertFalse(sizing.isG1());
+		assertTrue(sizing.getJvmOptions().contains("-Xmx596m"));
+		assertTrue(sizing.getJvmOptions().contains("-XX:+UseParallelGC"));
+	}
+
+	public void testLargeProjectIsBounded() {
+		JvmSizing sizing = JvmSizing.compute(200 * MB, 4000 * MB, 8192);
+		assertEquals(8192, sizing.getHeap());
+		assertEquals(2048, sizing.getMetaspace());
+		assertTrue(sizing.isG1());
+		assertTrue(sizing.getJvmOptions().contains("-XX:+UseG1GC"));
+	}
+
+	public void testOptionsOfTheRunningJvm() {
+		JvmSizing sizing = JvmSizing.compute(0, 0, 1500);
+		assertFalse(sizing.getJvmOptions("1.8.0_60").contains("-XX:+ExitOnOutOfMemoryError"));
+		assertTrue(sizing.getJvmOptions("1.8.0_92").contains("-XX:+ExitOnOutOfMemoryError"));
+		assertTrue(sizing.getJvmOptions("11.0.2").contains("-XX:+ExitOnOutOfMemoryError"));
+		assertFalse(sizing.getJvmOptions("11.0.2").contains("-XX:+IgnoreUnrecognizedVMOptions"));
+	}
+
+	public void testGrow() {
+		JvmSizing sizing = JvmSizing.compute(0, 0, 1500);
+		assertEquals(512, sizing.getHeap());
+
+		JvmSizing bigger = sizing.grow(false);
+		assertEquals(1024, bigger.getHeap());
+		assertEquals(1500, bigger.grow(false).getHeap());
+		assertNull(bigger.grow(false).grow(false));
+
+		JvmSizing moreMetaspace = sizing.grow(true);
+		assertEquals(512, moreMetaspace.getHeap());
+		assertEquals(512, moreMetaspace.getMetaspace());
+	}
+}
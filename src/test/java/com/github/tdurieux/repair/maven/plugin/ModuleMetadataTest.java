@@ -0,0 +1,22 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+public class ModuleMetadataTest extends TestCase {
+
+	public void testParseComplianceLevel() {
+		assertEquals(5, ModuleMetadata.parseComplianceLevel("1.5"));
+		assertEquals(8, ModuleMetadata.parseComplianceLevel("1.8"));
+		assertEquals(8, ModuleMetadata.parseComplianceLevel("8"));
+		assertEquals(11, ModuleMetadata.parseComplianceLevel("11"));
+		assertEquals(17, ModuleMetadata.parseComplianceLevel(" 17 "));
+		assertEquals(17, ModuleMetadata.parseComplianceLevel("17.0.2"));
+		assertEquals(8, ModuleMetadata.parseComplianceLevel("1.8.0_292"));
+	}
+
+	public void testInvalidComplianceLevel() {
+		assertEquals(-1, ModuleMetadata.parseComplianceLevel(null));
+		assertEquals(-1, ModuleMetadata.parseComplianceLevel(""));
+		assertEquals(-1, ModuleMetadata.parseComplianceLevel("${java.version}"));
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ReactorGraphTest extends TestCase {
+
+	private static MavenProject project(String artifactId, String... dependencies) {
+		MavenProject project = new MavenProject();
+		project.setGroupId("org.example");
+		project.setArtifactId(artifactId);
+		List<Dependency> projectDependencies = new ArrayList<>();
+		for (String dependency : dependencies) {
+			Dependency projectDependency = new Dependency();
+			projectDependency.setGroupId(dependency.contains(":") ? dependency.split(":")[0] : "org.example");
+			projectDependency.setArtifactId(dependency.contains(":") ? dependency.split(":")[1] : dependency);
+			projectDependencies.add(projectDependency);
+		}
+		project.setDependencies(projectDependencies);
+		return project;
+	}
+
+	public void testTransitiveReachability() {
+		MavenProject core = project("core", "junit:junit");
+		MavenProject api = project("api", "core");
+		MavenProject app = project("app", "api");
+		MavenProject other = project("other", "core");
+		ReactorGraph graph = new ReactorGraph(Arrays.asList(core, api, app, other));
+
+		assertEquals(Arrays.asList(core, api, app), graph.getReachable(Collections.singletonList(app)));
+		assertEquals(Collections.singletonList(core), graph.getReachable(Collections.singletonList(core)));
+	}
+
+	public void testDependenciesOutsideTheReactor() {
+		MavenProject core = project("core", "junit:junit", "org.other:core");
+		ReactorGraph graph = new ReactorGraph(Collections.singletonList(core));
+
+		assertTrue(graph.getDependencies(core).isEmpty());
+		assertEquals(Collections.singletonList(core), graph.getReachable(Collections.singletonList(core)));
+	}
+
+	public void testReactorOrder() {
+		MavenProject core = project("core");
+		MavenProject util = project("util");
+		MavenProject app = project("app", "util", "core");
+		ReactorGraph graph = new ReactorGraph(Arrays.asList(core, util, app));
+
+		assertEquals(Arrays.asList(util, core), graph.getDependencies(app));
+		assertEquals(Arrays.asList(core, util, app), graph.getReachable(Arrays.asList(app, util)));
+	}
+}
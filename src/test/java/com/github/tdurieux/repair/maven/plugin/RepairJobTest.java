@@ -0,0 +1,50 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class RepairJobTest extends TestCase {
+
+	public void testEnumerate() throws Exception {
+		File bugs = Files.createTempDirectory("bugs").toFile();
+		for (String bug : new String[] {"math-2", "lang-1"}) {
+			File project = new File(bugs, bug);
+			project.mkdirs();
+			new File(project, "pom.xml").createNewFile();
+		}
+		new File(bugs, "not-a-project").mkdirs();
+
+		List<RepairJob> jobs = RepairJob.enumerate(bugs, Arrays.asList("npefix", "nopol"), Arrays.asList("laps=10", "laps=100;selector=greedy"));
+		assertEquals(8, jobs.size());
+		assertEquals("lang-1_npefix_0", jobs.get(0).getId());
+		assertEquals(new File(bugs, "lang-1/pom.xml"), jobs.get(0).getPom());
+		assertEquals("npefix", jobs.get(0).getGoal());
+		assertEquals("10", jobs.get(0).getProperties().get("laps"));
+		assertEquals("greedy", jobs.get(1).getProperties().get("selector"));
+		assertEquals("lang-1_nopol_0", jobs.get(2).getId());
+		assertEquals("math-2_npefix_0", jobs.get(4).getId());
+	}
+
+	public void testEnumerateSingleProject() throws Exception {
+		File project = Files.createTempDirectory("bug").toFile();
+		new File(project, "pom.xml").createNewFile();
+
+		List<RepairJob> jobs = RepairJob.enumerate(project, Collections.singletonList("npefix"), null);
+		assertEquals(1, jobs.size());
+		assertEquals(project.getName() + "_npefix", jobs.get(0).getId());
+		assertTrue(jobs.get(0).getProperties().isEmpty());
+	}
+
+	public void testParseConfiguration() {
+		Map<String, String> properties = RepairJob.parseConfiguration(" laps = 10 ;selector=greedy;;invalid");
+		assertEquals(2, properties.size());
+		assertEquals("10", properties.get("laps"));
+		assertEquals("greedy", properties.get("selector"));
+	}
+}
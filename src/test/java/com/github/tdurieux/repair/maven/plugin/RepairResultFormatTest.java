@@ -0,0 +1,37 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class RepairResultFormatTest extends TestCase {
+
+	public void testRoundTrip() throws Exception {
+		RepairResult result = new RepairResult("npefix", 10, 20)
+				.addFailingTest("a.ATest#test1")
+				.addCandidate(new RepairResult.Candidate("lapse-0", false, null, 5).addTest("a.ATest#test1"))
+				.addCandidate(new RepairResult.Candidate("lapse-1", true, "--- a/A.java\n+++ b/A.java\n", -1).addTest("a.ATest#test1"));
+
+		File file = File.createTempFile("result", RepairResultFormat.EXTENSION);
+		RepairResultFormat.write(result, file);
+		RepairResult read = RepairResultFormat.read(file);
+
+		assertEquals("npefix", read.getTool());
+		assertEquals(10, read.getStart());
+		assertEquals(20, read.getEnd());
+		assertEquals(result.getFailingTests(), read.getFailingTests());
+		assertEquals(2, read.getCandidates().size());
+		assertEquals(1, read.getNbValidCandidates());
+
+		RepairResult.Candidate first = read.getCandidates().get(0);
+		assertEquals("lapse-0", first.getId());
+		assertFalse(first.isValid());
+		assertNull(first.getDiff());
+		assertEquals(5, first.getDuration());
+		assertEquals(result.getFailingTests(), first.getTests());
+
+		RepairResult.Candidate second = read.getCandidates().get(1);
+		assertEquals("--- a/A.java\n+++ b/A.java\n", second.getDiff());
+		assertEquals(-1, second.getDuration());
+	}
+}
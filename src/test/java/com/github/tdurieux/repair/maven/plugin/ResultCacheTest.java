@@ -0,0 +1,47 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ResultCacheTest extends TestCase {
+
+	public void testFingerprint() throws Exception {
+		File sources = Files.createTempDirectory("src").toFile();
+		File source = new File(sources, "a/B.java");
+		source.getParentFile().mkdirs();
+		Files.write(source.toPath(), "class B {}".getBytes(StandardCharsets.UTF_8));
+		List<File> sourceFolders = Collections.singletonList(sources);
+		List<URL> classpath = Collections.emptyList();
+		List<String> tests = Collections.singletonList("a.BTest");
+		Map<String, String> configuration = Collections.singletonMap("type", "condition");
+
+		String fingerprint = ResultCache.fingerprint(sourceFolders, classpath, tests, configuration);
+		assertEquals(fingerprint, ResultCache.fingerprint(sourceFolders, classpath, tests, configuration));
+		assertFalse(fingerprint.equals(ResultCache.fingerprint(sourceFolders, classpath, tests, Collections.singletonMap("type", "precondition"))));
+		assertFalse(fingerprint.equals(ResultCache.fingerprint(sourceFolders, classpath, Collections.singletonList("a.CTest"), configuration)));
+
+		Files.write(source.toPath(), "class B { }".getBytes(StandardCharsets.UTF_8));
+		assertFalse(fingerprint.equals(ResultCache.fingerprint(sourceFolders, classpath, tests, configuration)));
+	}
+
+	public void testGetAndPut() throws Exception {
+		ResultCache cache = new ResultCache(new File(Files.createTempDirectory("cache").toFile(), "nopol"));
+		assertNull(cache.get("abc"));
+
+		RepairResult result = new RepairResult("nopol", 1, 2).addFailingTest("a.BTest");
+		result.addCandidate(new RepairResult.Candidate("patch-0", true, "a != null", 10));
+		cache.put("abc", result);
+
+		RepairResult cachedResult = cache.get("abc");
+		assertEquals("nopol", cachedResult.getTool());
+		assertEquals(1, cachedResult.getCandidates().size());
+		assertEquals("a != null", cachedResult.getCandidates().get(0).getDiff());
+	}
+}
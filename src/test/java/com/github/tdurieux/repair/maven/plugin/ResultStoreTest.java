@@ -0,0 +1,85 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+public class ResultStoreTest extends TestCase {
+
+	public void testAppendAndFind() throws Exception {
+		File file = new File(Files.createTempDirectory("store").toFile(), "results.store");
+		ResultStore store = ResultStore.open(file);
+		assertTrue(store.getEntries().isEmpty());
+
+		RepairResult npefix = new RepairResult("npefix", 1000, 5000).addFailingTest("a.BTest");
+		npefix.addCandidate(new RepairResult.Candidate("lapse-0", false, null, 10));
+		npefix.addCandidate(new RepairResult.Candidate("lapse-1", true, "- a.b()\n+ if (a != null) a.b()", 10));
+		store.append(npefix, "g:a", "abcdef", "laps=10");
+		store.append(new RepairResult("nopol", 1000, 2000), "g:b", null, "");
+
+		ResultStore reopened = ResultStore.open(file);
+		assertEquals(2, reopened.getEntries().size());
+		ResultStore.Entry entry = reopened.getEntries().get(0);
+		assertEquals("g:a", entry.getProject());
+		assertEquals("abcdef", entry.getCommit());
+		assertEquals("npefix", entry.getTool());
+		assertEquals("laps=10", entry.getConfiguration());
+		assertEquals(5000, entry.getDate());
+		assertEquals(4000, entry.getPatchedRunDuration());
+		assertEquals(2, entry.getNbCandidates());
+		assertEquals(1, entry.getNbValidCandidates());
+		assertEquals(-1, reopened.getEntries().get(1).getPatchedRunDuration());
+
+		assertEquals(1, reopened.find("g:a", null, null, false).size());
+		assertEquals(1, reopened.find(null, null, "abc", false).size());
+		assertEquals(1, reopened.find(null, null, null, true).size());
+		assertEquals(0, reopened.find(null, "astor-jgenprog", null, false).size());
+
+		RepairResult result = reopened.readResult(entry);
+		assertEquals("- a.b()\n+ if (a != null) a.b()", result.getCandidates().get(1).getDiff());
+	}
+
+	public void testAppendSeesOtherExecutions() throws Exception {
+		File file = new File(Files.createTempDirectory("store").toFile(), "results.store");
+		ResultStore first = ResultStore.open(file);
+		ResultStore second = ResultStore.open(file);
+		first.append(new RepairResult("npefix", 0, 1), "g:a", "c1", "");
+		second.append(new RepairResult("nopol", 0, 1), "g:a", "c1", "");
+
+		assertEquals(2, second.getEntries().size());
+		assertEquals("npefix", second.getEntries().get(0).getTool());
+		assertEquals("nopol", second.readResult(second.getEntries().get(1)).getTool());
+	}
+
+	public void testIncompleteRecordIsIgnored() throws Exception {
+		File file = new File(Files.createTempDirectory("store").toFile(), "results.store");
+		ResultStore store = ResultStore.open(file);
+		store.append(new RepairResult("npefix", 0, 1), "g:a", "c1", "");
+		long length = file.length();
+		store.append(new RepairResult("nopol", 0, 1), "g:a", "c1", "");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(length + 10);
+		}
+
+		store = ResultStore.open(file);
+		assertEquals(1, store.getEntries().size());
+		store.append(new RepairResult("astor-jgenprog", 0, 1), "g:a", "c1", "");
+		store = ResultStore.open(file);
+		assertEquals(2, store.getEntries().size());
+		assertEquals("astor-jgenprog", store.readResult(store.getEntries().get(1)).getTool());
+	}
+
+	public void testLongConfigurationIsTruncated() throws Exception {
+		File file = new File(Files.createTempDirectory("store").toFile(), "results.store");
+		StringBuilder configuration = new StringBuilder();
+		while (configuration.length() < 70000) {
+			configuration.append("laps=10;");
+		}
+		ResultStore.open(file).append(new RepairResult("npefix", 0, 1), "g:a", "c1", configuration.toString());
+
+		ResultStore store = ResultStore.open(file);
+		assertEquals(16000, store.getEntries().get(0).getConfiguration().length());
+	}
+}
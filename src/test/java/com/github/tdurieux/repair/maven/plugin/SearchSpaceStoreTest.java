@@ -0,0 +1,42 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.StringWriter;
+
+public class SearchSpaceStoreTest extends TestCase {
+
+	public void testWriteAndRead() throws Exception {
+		File file = File.createTempFile("searchspace", ".bin");
+		try (SearchSpaceStore.Builder builder = SearchSpaceStore.create(file)) {
+			builder.add("{\"strategy\":\"Strat1A\"}", 3, 1);
+			builder.add("{\"strategy\":\"Strat4 NULL\",\"value\":\"\u00e9\"}", 0, 0);
+		}
+
+		try (SearchSpaceStore store = SearchSpaceStore.open(file)) {
+			assertEquals(2, store.size());
+			assertEquals("{\"strategy\":\"Strat1A\"}", store.getDecision(0));
+			assertEquals(3, store.getNbLaps(0));
+			assertEquals(1, store.getNbValidLaps(0));
+			assertEquals("{\"strategy\":\"Strat4 NULL\",\"value\":\"\u00e9\"}", store.getDecision(1));
+			assertEquals(0, store.getNbLaps(1));
+
+			StringWriter writer = new StringWriter();
+			store.writeJSONArray(writer);
+			assertEquals("[" + store.getDecision(0) + "," + store.getDecision(1) + "]", writer.toString());
+		}
+	}
+
+	public void testEmptyStore() throws Exception {
+		File file = File.createTempFile("searchspace", ".bin");
+		SearchSpaceStore.create(file).close();
+
+		try (SearchSpaceStore store = SearchSpaceStore.open(file)) {
+			assertEquals(0, store.size());
+			StringWriter writer = new StringWriter();
+			store.writeJSONArray(writer);
+			assertEquals("[]", writer.toString());
+		}
+	}
+}
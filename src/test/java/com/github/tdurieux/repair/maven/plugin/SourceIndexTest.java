@@ -0,0 +1,67 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SourceIndexTest extends TestCase {
+
+	private File createSource(File root, String path) throws Exception {
+		File file = new File(root, path);
+		file.getParentFile().mkdirs();
+		file.createNewFile();
+		return file;
+	}
+
+	public void testStackFrameLocation() throws Exception {
+		File moduleA = Files.createTempDirectory("module-a").toFile();
+		File moduleB = Files.createTempDirectory("module-b").toFile();
+		File c = createSource(moduleA, "a/b/C.java");
+		File d = createSource(moduleB, "a/b/D.java");
+		File duplicated = createSource(moduleB, "a/b/C.java");
+		File root = createSource(moduleB, "Root.java");
+
+		SourceIndex index = new SourceIndex(Arrays.asList(moduleA, moduleB, new File(moduleA, "missing")));
+
+		assertEquals(3, index.size());
+		assertEquals(c, index.getSourceFile("a.b.C"));
+		assertEquals(c, index.getStackFrameLocation("a.b.C$Inner$1.run", false));
+		assertEquals(d, index.getStackFrameLocation("a.b.D.method", false));
+		assertEquals(d.getParentFile(), index.getStackFrameLocation("a.b.D.method", true));
+		assertEquals(root, index.getStackFrameLocation("Root.main", false));
+		assertNull(index.getStackFrameLocation("java.lang.String.length", false));
+		assertNull(index.getStackFrameLocation("a.b.E.method", true));
+		assertFalse(duplicated.equals(index.getSourceFile("a.b.C")));
+	}
+
+	public void testDirectDependencies() throws Exception {
+		File module = Files.createTempDirectory("module").toFile();
+		File c = createSource(module, "a/b/C.java");
+		File sibling = createSource(module, "a/b/Sibling.java");
+		File unused = createSource(module, "a/b/Unused.java");
+		File imported = createSource(module, "a/d/Imported.java");
+		File wildcard = createSource(module, "a/e/Wildcard.java");
+		File constants = createSource(module, "a/e/Constants.java");
+		createSource(module, "a/e/Other.java");
+		Files.write(c.toPath(), ("package a.b;\n"
+				+ "import a.d.Imported;\n"
+				+ "import a.e.*;\n"
+				+ "import static a.e.Constants.VALUE;\n"
+				+ "import java.util.List;\n"
+				+ "/* Unused */\n"
+				+ "class C extends Sibling { // Other\n"
+				+ "  Wildcard w; List<String> l; C c; int v = VALUE;\n"
+				+ "}\n").getBytes(StandardCharsets.UTF_8));
+
+		SourceIndex index = new SourceIndex(Arrays.asList(module));
+
+		Set<File> dependencies = index.getDirectDependencies(c);
+		assertEquals(new HashSet<>(Arrays.asList(sibling, imported, wildcard, constants)), dependencies);
+		assertFalse(dependencies.contains(unused));
+	}
+}
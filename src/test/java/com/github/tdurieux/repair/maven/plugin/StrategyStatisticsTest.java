@@ -0,0 +1,105 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StrategyStatisticsTest extends TestCase {
+
+	private File folder;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		folder = Files.createTempDirectory("statistics").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		delete(folder);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	public void testUnknownStrategy() throws Exception {
+		File file = new File(new File(folder, "statistics"), "statistics.properties");
+		StrategyStatistics statistics = StrategyStatistics.load(file);
+		assertEquals(0, statistics.getNbLaps("Strat1A"));
+		assertEquals(0.5, statistics.getSuccessRate("Strat1A"));
+		assertEquals(Arrays.asList("Strat1A", "Strat1B"), statistics.rank(Arrays.asList("Strat1A", "Strat1B")));
+	}
+
+	public void testUpdateAndRank() throws Exception {
+		File file = new File(new File(folder, "statistics"), "statistics.properties");
+		Map<String, int[]> laps = new HashMap<>();
+		StrategyStatistics.addLap(laps, "Strat1A", false);
+		StrategyStatistics.addLap(laps, "Strat1A", false);
+		StrategyStatistics.addLap(laps, "Strat4.NULL", true);
+		StrategyStatistics.load(file).update(laps);
+
+		StrategyStatistics statistics = StrategyStatistics.load(file);
+		assertEquals(2, statistics.getNbLaps("Strat1A"));
+		assertEquals(0, statistics.getNbValidLaps("Strat1A"));
+		assertEquals(1, statistics.getNbValidLaps("Strat4.NULL"));
+		assertEquals(Arrays.asList("Strat4.NULL", "Strat1B", "Strat1A"),
+				statistics.rank(Arrays.asList("Strat1A", "Strat1B", "Strat4.NULL")));
+	}
+
+	public void testConcurrentUpdatesAreMerged() throws Exception {
+		File file = new File(new File(folder, "statistics"), "statistics.properties");
+		StrategyStatistics first = StrategyStatistics.load(file);
+		StrategyStatistics second = StrategyStatistics.load(file);
+
+		Map<String, int[]> laps = new HashMap<>();
+		StrategyStatistics.addLap(laps, "Strat3", true);
+		first.update(laps);
+		second.update(laps);
+
+		StrategyStatistics statistics = StrategyStatistics.load(file);
+		assertEquals(2, statistics.getNbLaps("Strat3"));
+		assertEquals(2, statistics.getNbValidLaps("Strat3"));
+	}
+
+	public void testUpdatesFromThreadsOfTheSameJvm() throws Exception {
+		final File file = new File(new File(folder, "statistics"), "statistics.properties");
+		final Map<String, int[]> laps = new HashMap<>();
+		StrategyStatistics.addLap(laps, "Strat2A", false);
+		final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						StrategyStatistics.load(file).update(laps);
+					} catch (Exception e) {
+						errors.add(e);
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(8, StrategyStatistics.load(file).getNbLaps("Strat2A"));
+	}
+}
@@ -0,0 +1,51 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SurefireReportWriterTest extends TestCase {
+
+	public void testWrite() throws Exception {
+		File reports = Files.createTempDirectory("surefire-reports").toFile();
+		TestRunner.Failure failure = new TestRunner.Failure("a.BTest", "testB", "java.lang.NullPointerException", "a < b", "java.lang.NullPointerException\n\tat a.B.b(B.java:3)");
+
+		File report = SurefireReportWriter.write(reports, "a.BTest", Arrays.asList("testA", "testB"), Collections.singletonList(failure));
+		assertEquals(new File(reports, "TEST-a.BTest.xml"), report);
+
+		String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+		assertTrue(content.contains("tests=\"2\" failures=\"0\" errors=\"1\""));
+		assertTrue(content.contains("<testcase name=\"testA\" classname=\"a.BTest\" time=\"0\"/>"));
+		assertTrue(content.contains("<error message=\"a &lt; b\" type=\"java.lang.NullPointerException\">"));
+		assertTrue(content.contains("at a.B.b(B.java:3)</error>"));
+	}
+
+	public void testAssertionFailure() throws Exception {
+		File reports = Files.createTempDirectory("surefire-reports").toFile();
+		TestRunner.Failure failure = new TestRunner.Failure("a.BTest", "testA", "java.lang.AssertionError", null, "java.lang.AssertionError");
+
+		File report = SurefireReportWriter.write(reports, "a.BTest", Collections.singletonList("testA"), Collections.singletonList(failure));
+
+		String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+		assertTrue(content.contains("failures=\"1\" errors=\"0\""));
+		assertTrue(content.contains("<failure type=\"java.lang.AssertionError\">"));
+	}
+
+	public void testMergeWithExistingReport() throws Exception {
+		File reports = Files.createTempDirectory("surefire-reports").toFile();
+		TestRunner.Failure failure = new TestRunner.Failure("a.BTest", "testB", "java.lang.AssertionError", null, "java.lang.AssertionError");
+		SurefireReportWriter.write(reports, "a.BTest", Arrays.asList("testA", "testB", "testC"), Collections.singletonList(failure));
+
+		File report = SurefireReportWriter.write(reports, "a.BTest", Collections.singletonList("testB"), Collections.<TestRunner.Failure>emptyList());
+
+		String content = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+		assertTrue(content.contains("tests=\"3\" failures=\"0\" errors=\"0\""));
+		assertTrue(content.contains("name=\"testA\""));
+		assertTrue(content.contains("name=\"testC\""));
+		assertFalse(content.contains("<failure"));
+	}
+}
@@ -0,0 +1,61 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class UnifiedDiffTest extends TestCase {
+
+	private static final String SOURCE = "package a;\n"
+			+ "public class B {\n"
+			+ "    int get(Object o) {\n"
+			+ "        return o.hashCode();\n"
+			+ "    }\n"
+			+ "}\n";
+
+	public void testApply() throws Exception {
+		File root = Files.createTempDirectory("project").toFile();
+		File file = new File(root, "src/main/java/a/B.java");
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+		String diff = "--- /other/location/src/main/java/a/B.java\n"
+				+ "+++ /other/location/src/main/java/a/B.java\n"
+				+ "@@ -3,3 +3,6 @@\n"
+				+ "     int get(Object o) {\n"
+				+ "+        if (o == null) {\n"
+				+ "+            return 0;\n"
+				+ "+        }\n"
+				+ "         return o.hashCode();\n"
+				+ "     }\n";
+
+		List<File> roots = Collections.singletonList(root);
+		Map<File, String> patched = UnifiedDiff.apply(diff, roots);
+		assertEquals(1, patched.size());
+		assertEquals(file.getCanonicalPath(), patched.keySet().iterator().next().getCanonicalPath());
+		assertTrue(patched.values().iterator().next().contains("        if (o == null) {\n            return 0;\n        }\n        return o.hashCode();"));
+		// the file itself is not modified
+		assertEquals(SOURCE, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+	}
+
+	public void testNotADiff() throws Exception {
+		assertNull(UnifiedDiff.apply("o != null", Collections.<File>emptyList()));
+		assertNull(UnifiedDiff.apply(null, Collections.<File>emptyList()));
+	}
+
+	public void testHunkNotMatching() throws Exception {
+		File root = Files.createTempDirectory("project").toFile();
+		Files.write(new File(root, "B.java").toPath(), SOURCE.getBytes(StandardCharsets.UTF_8));
+		try {
+			UnifiedDiff.apply("--- a/B.java\n+++ b/B.java\n@@ -1 +1 @@\n-package c;\n+package d;\n", Collections.singletonList(root));
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.tdurieux.repair.maven.plugin;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ValidationPoolTest extends TestCase {
+
+	public void testCandidateClassesAreReloaded() throws Exception {
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put(Pair.class.getName(), getBytecode(Pair.class));
+		try (CandidateClassLoader classLoader = new CandidateClassLoader(new URL[0], classes, getClass().getClassLoader())) {
+			Class<?> candidateClass = classLoader.loadClass(Pair.class.getName());
+			assertNotSame(Pair.class, candidateClass);
+			assertSame(classLoader, candidateClass.getClassLoader());
+			assertSame(candidateClass, classLoader.loadClass(Pair.class.getName()));
+			assertSame(TestCase.class, classLoader.loadClass(TestCase.class.getName()));
+		}
+	}
+
+	public void testMissingJUnit() throws Exception {
+		ClassLoader classLoader = new CandidateClassLoader(new URL[0], Collections.<String, byte[]>emptyMap(), null);
+		TestRunner.Result result = TestRunner.run(classLoader, Arrays.asList("a.Test"));
+		assertFalse(result.isSuccess());
+		assertNotNull(result.getError());
+	}
+
+	public void testProtocol() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Map<String, byte[]> classes = new HashMap<>();
+		classes.put("a.B", new byte[] {1, 2, 3});
+		TestRunnerMain.writeRequest(new DataOutputStream(bytes), classes, Arrays.asList("a.BTest#test", "a.CTest"));
+
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(1, input.readInt());
+		assertEquals("a.B", input.readUTF());
+		byte[] bytecode = new byte[input.readInt()];
+		input.readFully(bytecode);
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, bytecode));
+		assertEquals(Arrays.asList("a.BTest#test", "a.CTest"), TestRunnerMain.readStrings(input));
+
+		bytes = new ByteArrayOutputStream();
+		TestRunner.Result.error("Timeout").write(new DataOutputStream(bytes));
+		TestRunner.Result result = TestRunner.Result.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals("Timeout", result.getError());
+		List<TestRunner.Failure> failures = result.getFailures();
+		assertTrue(failures.isEmpty());
+		assertFalse(result.isSuccess());
+	}
+
+	public void testValidationsAfterTimeout() throws Exception {
+		List<URL> dependencies = Arrays.asList(TestCase.class.getProtectionDomain().getCodeSource().getLocation(),
+				ValidationPoolTest.class.getProtectionDomain().getCodeSource().getLocation());
+		try (ValidationPool pool = new ValidationPool(dependencies, Collections.<File>emptyList()).setTimeout(2000).start(1)) {
+			Map<String, byte[]> classes = Collections.emptyMap();
+			TestRunner.Result result = pool.validate(classes, Collections.singletonList(Sleeping.class.getName()));
+			assertEquals("Timeout after 2000ms", result.getError());
+
+			// the JVM killed by the timeout is replaced
+			assertTrue(pool.validate(classes, Collections.singletonList(Passing.class.getName())).isSuccess());
+			assertTrue(pool.validate(classes, Collections.singletonList(Passing.class.getName())).isSuccess());
+		}
+	}
+
+	public static class Sleeping extends TestCase {
+
+		public void testSleep() throws Exception {
+			Thread.sleep(60000);
+		}
+	}
+
+	public static class Passing extends TestCase {
+
+		public void testPass() {
+		}
+	}
+
+	private static byte[] getBytecode(Class<?> type) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (InputStream input = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = input.read(buffer)) != -1) {
+				output.write(buffer, 0, length);
+			}
+		}
+		return output.toByteArray();
+	}
+}